@@ -1,3 +1,4 @@
+import benchmark.ServerLoadTest;
 import buffered.BufferingIO;
 import buffered.Task;
 import channels.FileChannelImpl;
@@ -66,5 +67,9 @@ public class Main {
         // ============= Networking I/O ===============
         NetworkingIO networkingIO = new NetworkingIO();
         networkingIO.networkingIO();
+
+        // ============= Server Load Test ===============
+        ServerLoadTest loadTest = new ServerLoadTest(8, 20_000, 3_000);
+        // loadTest.serverLoadTest();
     }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package benchmark;
+
+/*
+ * Load generator for the line-based echo servers ("ping\n" → "Echo: ping\n").
+
+    CLOSED LOOP (N clients):  send → wait for reply → send → ...
+      Models a fixed number of users. Easy, but if the server stalls the clients
+      stall with it and stop sending → the stall is hidden ("coordinated omission").
+
+    OPEN LOOP (fixed arrival rate):  send at t0, t0+1ms, t0+2ms ... no matter what
+      Latency is measured from when the request SHOULD have been sent, so a 1s stall
+      shows up as ~1000 slow requests, not as one.
+
+ * Clients run on virtual threads so the generator itself stays cheap.
+ * While the load runs, a sampler records JVM platform threads and heap usage.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator {
+    private static final byte[] PING = "ping\n".getBytes(StandardCharsets.UTF_8);
+    private static final int READ_TIMEOUT_MILLIS = 2_000;
+
+    private final String host;
+    private final int port;
+    private final int greetingLines; // MultiThreadedServer says "Welcome" first
+    private final int baselineThreads;
+
+    // Create it BEFORE starting an in-process server so the thread baseline excludes the server
+    public LoadGenerator(String host, int port, int greetingLines) {
+        this.host = host;
+        this.port = port;
+        this.greetingLines = greetingLines;
+        this.baselineThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    // ============ RESULT ============
+    public static class Result {
+        private final String mode;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private long durationNanos;
+        private int baselineThreads;
+        private int peakThreads;
+        private long peakHeapBytes;
+
+        Result(String mode) {
+            this.mode = mode;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getThroughput() {
+            return durationNanos == 0 ? 0 : latency.getCount() * 1_000_000_000L / durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %8d msg/s  %s  errors=%d  threads=%d (baseline %d)  heap=%dMB",
+                    mode, getThroughput(), latency.summary(), errors.get(),
+                    peakThreads, baselineThreads, peakHeapBytes / (1024 * 1024));
+        }
+    }
+
+    // ============ CLOSED LOOP ============
+    public Result runClosedLoop(int clients, long durationMillis) throws InterruptedException {
+        Result result = new Result("closed loop, " + clients + " clients");
+        long deadline = System.nanoTime() + durationMillis * 1_000_000;
+
+        ResourceSampler sampler = new ResourceSampler(result, baselineThreads);
+        long start = System.nanoTime();
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                clientThreads.submit(() -> {
+                    try (Socket socket = connect()) {
+                        OutputStream out = socket.getOutputStream();
+                        BufferedReader in = reader(socket);
+                        while (System.nanoTime() < deadline) {
+                            long sent = System.nanoTime();
+                            out.write(PING);
+                            out.flush();
+                            if (in.readLine() == null) {
+                                throw new IOException("Server closed the connection");
+                            }
+                            result.latency.record(System.nanoTime() - sent);
+                        }
+                    } catch (IOException e) {
+                        result.errors.incrementAndGet(); // includes clients the server never got to
+                    }
+                });
+            }
+        }
+        result.durationNanos = System.nanoTime() - start;
+        sampler.stop();
+        return result;
+    }
+
+    // ============ OPEN LOOP ============
+    public Result runOpenLoop(int connections, int messagesPerSecond, long durationMillis) throws InterruptedException {
+        Result result = new Result("open loop, " + messagesPerSecond + " msg/s");
+        long interval = connections * 1_000_000_000L / messagesPerSecond; // per connection
+        long start = System.nanoTime();
+        long deadline = start + durationMillis * 1_000_000;
+
+        ResourceSampler sampler = new ResourceSampler(result, baselineThreads);
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < connections; c++) {
+                long firstSend = start + c * interval / connections; // spread connections evenly
+                clientThreads.submit(() -> runOpenLoopConnection(result, firstSend, interval, deadline));
+            }
+        }
+        result.durationNanos = System.nanoTime() - start;
+        sampler.stop();
+        return result;
+    }
+
+    private void runOpenLoopConnection(Result result, long firstSend, long interval, long deadline) {
+        try (Socket socket = connect()) {
+            Queue<Long> intendedSendTimes = new ConcurrentLinkedQueue<>();
+            AtomicLong sent = new AtomicLong();
+
+            // Receiver: replies come back in order, latency counts from the INTENDED send time
+            FutureTask<Long> receiver = new FutureTask<>(() -> {
+                BufferedReader in = reader(socket);
+                long received = 0;
+                try {
+                    while (System.nanoTime() < deadline || received < sent.get()) {
+                        if (in.readLine() == null) {
+                            break;
+                        }
+                        Long intended = intendedSendTimes.poll();
+                        if (intended != null) {
+                            result.latency.record(System.nanoTime() - intended);
+                        }
+                        received++;
+                    }
+                } catch (IOException e) {
+                    // timeout or close: whatever is missing is counted below
+                }
+                return received;
+            });
+            Thread.ofVirtual().start(receiver);
+
+            OutputStream out = socket.getOutputStream();
+            for (long next = firstSend; next < deadline; next += interval) {
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                intendedSendTimes.add(next); // if we are late, the lateness is part of the latency
+                sent.incrementAndGet();
+                out.write(PING);
+                out.flush();
+            }
+
+            long received = receiver.get();
+            result.errors.addAndGet(sent.get() - received);
+        } catch (Exception e) {
+            result.errors.incrementAndGet();
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+        return socket;
+    }
+
+    private BufferedReader reader(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        for (int i = 0; i < greetingLines; i++) {
+            in.readLine();
+        }
+        return in;
+    }
+
+    // ============ SERVER RESOURCES ============
+    // Samples platform threads and heap every 50ms while the load runs
+    private static class ResourceSampler {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        ResourceSampler(Result result, int baselineThreads) {
+            result.baselineThreads = baselineThreads;
+            thread = new Thread(() -> {
+                while (running) {
+                    result.peakThreads = Math.max(result.peakThreads, threads.getThreadCount());
+                    result.peakHeapBytes = Math.max(result.peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+                    LockSupport.parkNanos(50_000_000);
+                }
+            }, "load-resource-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join();
+        }
+    }
+}
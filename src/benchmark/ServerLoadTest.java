@@ -0,0 +1,141 @@
+package benchmark;
+
+/*
+ * Runs the same echo load against the four server models:
+ *   BlockingServer       → one client at a time
+ *   MultiThreadedServer  → thread pool, one thread per active client
+ *   NonBlockingServer    → selectors, few threads for all clients (readiness)
+ *   AsyncEchoServer      → NIO.2 completion handlers on a channel group (completion)
+ */
+
+import networkingIO.NetworkingIO;
+import nonBlockingIO.AsyncEchoServer;
+import nonBlockingIO.NIOSelectors;
+
+import java.io.IOException;
+
+public class ServerLoadTest {
+
+    // Starts a server in this JVM and stops it again
+    private interface ServerUnderTest {
+        void start() throws IOException;
+
+        void stop() throws IOException;
+    }
+
+    public enum ServerModel {
+        BLOCKING(0),
+        MULTI_THREADED(1),
+        NON_BLOCKING(0),
+        ASYNC_COMPLETION(0);
+
+        private final int greetingLines;
+
+        ServerModel(int greetingLines) {
+            this.greetingLines = greetingLines;
+        }
+
+        public int greetingLines() {
+            return greetingLines;
+        }
+    }
+
+    private final int clients;
+    private final int messagesPerSecond;
+    private final long durationMillis;
+
+    public ServerLoadTest(int clients, int messagesPerSecond, long durationMillis) {
+        this.clients = clients;
+        this.messagesPerSecond = messagesPerSecond;
+        this.durationMillis = durationMillis;
+    }
+
+    public void serverLoadTest() throws IOException, InterruptedException {
+        System.out.println("=== Server Models under Load (loopback) ===");
+        System.out.println("Clients: " + clients + ", open-loop rate: " + messagesPerSecond
+                + " msg/s, duration: " + durationMillis + " ms\n");
+
+        int port = 9500;
+        for (ServerModel model : ServerModel.values()) {
+            System.out.println(model + ":");
+            System.out.println("  " + run(model, port++, true));
+            System.out.println("  " + run(model, port++, false));
+            System.out.println();
+        }
+    }
+
+    public LoadGenerator.Result run(ServerModel model, int port, boolean closedLoop)
+            throws IOException, InterruptedException {
+        LoadGenerator generator = new LoadGenerator("localhost", port, model.greetingLines());
+        ServerUnderTest server = create(model, port);
+        server.start();
+        Thread.sleep(200); // let the server bind
+
+        try {
+            return closedLoop
+                    ? generator.runClosedLoop(clients, durationMillis)
+                    : generator.runOpenLoop(clients, messagesPerSecond, durationMillis);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private ServerUnderTest create(ServerModel model, int port) {
+        switch (model) {
+            case BLOCKING: {
+                NetworkingIO.BlockingServer server = new NetworkingIO.BlockingServer(port);
+                server.setVerbose(false);
+                return inBackground(server::start, server::stop);
+            }
+            case MULTI_THREADED: {
+                NetworkingIO.MultiThreadedServer server = new NetworkingIO.MultiThreadedServer(port);
+                server.setVerbose(false);
+                return inBackground(server::start, server::stop);
+            }
+            case ASYNC_COMPLETION: {
+                AsyncEchoServer server = new AsyncEchoServer(Runtime.getRuntime().availableProcessors());
+                server.setVerbose(false);
+                return inBackground(() -> {
+                    try {
+                        server.start(port);
+                    } catch (IOException | InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }, server::stop);
+            }
+            default: {
+                NIOSelectors.NonBlockingServer server = new NIOSelectors.NonBlockingServer();
+                server.setVerbose(false);
+                return inBackground(() -> {
+                    try {
+                        server.start(port);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }, server::stop);
+            }
+        }
+    }
+
+    private interface Stopper {
+        void stop() throws IOException;
+    }
+
+    private static ServerUnderTest inBackground(Runnable start, Stopper stop) {
+        return new ServerUnderTest() {
+            private Thread thread;
+
+            @Override
+            public void start() {
+                thread = new Thread(start, "server-under-test");
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            @Override
+            public void stop() throws IOException {
+                stop.stop();
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package networkingIO;
+
+/*
+ * Adaptive concurrency limit (gradient style, like Netflix's concurrency-limits Gradient2).
+
+    A static limit is always wrong: too high and the queue grows until p99 explodes,
+    too low and threads idle while clients are turned away. So the limit follows the
+    queue wait it produces:
+
+      gradient = clamp(targetWait / recentWait, 0.5, 1.0)
+      newLimit = limit × gradient + √limit          (√limit = headroom to probe upwards)
+      limit    = limit × 0.8 + newLimit × 0.2       (smoothed)
+
+      waits under target → gradient 1   → limit creeps up by ~√limit/5 per sample
+      waits 2× target    → gradient 0.5 → limit drops ~10% per sample until waits recover
+
+    Like TCP Vegas it reacts to queueing delay, not to failures: the limit comes down
+    while requests are still being served, before timeouts and retries pile up.
+    Every admitted connection feeds one sample (its time in the accept queue).
+ */
+
+public class AdaptiveLimit {
+    private static final double SMOOTHING = 0.2;
+    private static final double RECENT_WEIGHT = 0.1; // EMA over roughly the last 10 samples
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetWaitNanos;
+    private double limit;
+    private double recentWaitNanos;
+    private volatile int currentLimit;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, long targetWaitMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetWaitNanos = targetWaitMillis * 1_000_000;
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public synchronized void onSample(long waitNanos) {
+        recentWaitNanos = recentWaitNanos == 0 ? waitNanos
+                : recentWaitNanos * (1 - RECENT_WEIGHT) + waitNanos * RECENT_WEIGHT;
+
+        double gradient = Math.max(0.5, Math.min(1.0, targetWaitNanos / Math.max(recentWaitNanos, 1.0)));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+        currentLimit = (int) limit;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("limit=%d (%d..%d), recentWait=%.1fms, target=%dms", currentLimit, minLimit, maxLimit,
+                recentWaitNanos / 1_000_000, targetWaitNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,140 @@
+package networkingIO;
+
+/*
+ * InputStream over ONE response body on a keep-alive socket.
+ * It stops exactly where the body ends (Content-Length bytes, or the last chunk),
+ * so the next response on the same socket is left untouched.
+
+    Socket stream:  [head 1][body 1 ............][head 2][body 2 ...]
+                            ↑                   ↑
+                            this stream starts  and returns -1 here
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+class HttpBodyInputStream extends InputStream {
+
+    private enum Framing { FIXED, CHUNKED, UNTIL_EOF }
+
+    private final InputStream in;
+    private final Framing framing;
+    private long remaining;      // FIXED: bytes left in the body, CHUNKED: bytes left in the current chunk
+    private boolean complete;
+
+    private HttpBodyInputStream(InputStream in, Framing framing, long remaining) {
+        this.in = in;
+        this.framing = framing;
+        this.remaining = remaining;
+        this.complete = framing == Framing.FIXED && remaining == 0;
+    }
+
+    static HttpBodyInputStream forResponse(InputStream in, int statusCode, Map<String, String> headers,
+                                           boolean headRequest) {
+        if (headRequest || statusCode == 204 || statusCode == 304 || statusCode / 100 == 1) {
+            return new HttpBodyInputStream(in, Framing.FIXED, 0);
+        }
+        if ("chunked".equalsIgnoreCase(headers.get("Transfer-Encoding"))) {
+            return new HttpBodyInputStream(in, Framing.CHUNKED, 0);
+        }
+        if (headers.containsKey("Content-Length")) {
+            return new HttpBodyInputStream(in, Framing.FIXED, Long.parseLong(headers.get("Content-Length").trim()));
+        }
+        // No framing: the body ends when the server closes the socket
+        return new HttpBodyInputStream(in, Framing.UNTIL_EOF, Long.MAX_VALUE);
+    }
+
+    // true once the whole body was read, i.e. the socket is positioned at the next response
+    boolean isComplete() {
+        return complete;
+    }
+
+    boolean endsWithConnection() {
+        return framing == Framing.UNTIL_EOF;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (complete) {
+            return -1;
+        }
+        if (length == 0) {
+            return 0;
+        }
+        if (framing == Framing.CHUNKED && remaining == 0 && !nextChunk()) {
+            return -1;
+        }
+
+        int n = in.read(buffer, offset, (int) Math.min(length, remaining));
+        if (n == -1) {
+            if (framing == Framing.UNTIL_EOF) {
+                complete = true;
+                return -1;
+            }
+            throw new EOFException("Connection closed in the middle of the body");
+        }
+
+        remaining -= n;
+        if (framing == Framing.FIXED && remaining == 0) {
+            complete = true;
+        }
+        if (framing == Framing.CHUNKED && remaining == 0) {
+            readLine(in); // CRLF after the chunk
+        }
+        return n;
+    }
+
+    // chunked: "<hex size>\r\n<bytes>\r\n" ... "0\r\n<trailers>\r\n"
+    private boolean nextChunk() throws IOException {
+        String sizeLine = readLine(in);
+        if (sizeLine == null) {
+            throw new EOFException("Truncated chunked body");
+        }
+        int semicolon = sizeLine.indexOf(';'); // chunk extensions
+        try {
+            remaining = Long.parseLong((semicolon >= 0 ? sizeLine.substring(0, semicolon) : sizeLine).trim(), 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad chunk size: " + sizeLine);
+        }
+        if (remaining == 0) {
+            String trailer;
+            while ((trailer = readLine(in)) != null && !trailer.isEmpty()) {
+                // trailers are ignored
+            }
+            complete = true;
+            return false;
+        }
+        return true;
+    }
+
+    // Header and chunk-size lines are ASCII, terminated by CRLF
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    // Closing does NOT close the socket, the pool decides what happens to it
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,232 @@
+package networkingIO;
+
+/*
+ * Keep-alive connection pool for HTTP/1.1.
+
+    Without a pool (Connection: close):
+      request 1: SYN → SYN-ACK → ACK → GET → response → FIN     ← handshake every time
+      request 2: SYN → SYN-ACK → ACK → GET → response → FIN
+
+    With a pool (keep-alive):
+      request 1: SYN → SYN-ACK → ACK → GET → response   (socket goes back to the pool)
+      request 2:                       GET → response   (same socket, no handshake)
+
+    The catch: a reused socket only works if we know exactly where each response ends,
+    so the body must be framed by Content-Length or chunked encoding, never "read until EOF".
+
+    Rules:
+      - at most maxPerHost sockets per host:port (leased + idle), acquire() waits for a free slot
+      - idle sockets older than idleTimeoutMillis are closed (the server would drop them anyway)
+ */
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HttpConnectionPool implements Closeable {
+
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 10_000;
+
+    private final int maxPerHost;
+    private final long idleTimeoutMillis;
+    private final Map<String, HostPool> hosts = new HashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public HttpConnectionPool(int maxPerHost, long idleTimeoutMillis) {
+        this.maxPerHost = maxPerHost;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    // Idle sockets + the per-host limit for one host:port
+    private class HostPool {
+        private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+        private final Semaphore permits = new Semaphore(maxPerHost);
+    }
+
+    private synchronized HostPool hostPool(String host, int port) {
+        return hosts.computeIfAbsent(host + ":" + port, key -> new HostPool());
+    }
+
+    public PooledConnection acquire(String host, int port) throws IOException {
+        HostPool hostPool = hostPool(host, port);
+        try {
+            if (!hostPool.permits.tryAcquire(ACQUIRE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("No connection to " + host + ":" + port + " available (max " + maxPerHost + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection");
+        }
+
+        synchronized (hostPool) {
+            evictExpired(hostPool);
+            PooledConnection connection = hostPool.idle.pollFirst(); // most recently used first
+            if (connection != null) {
+                reused.incrementAndGet();
+                connection.reused = true;
+                return connection;
+            }
+        }
+
+        try {
+            PooledConnection connection = new PooledConnection(host, port, new Socket(host, port));
+            created.incrementAndGet();
+            return connection;
+        } catch (IOException e) {
+            hostPool.permits.release();
+            throw e;
+        }
+    }
+
+    // reusable = the whole response was read and the server did not say "Connection: close"
+    public void release(PooledConnection connection, boolean reusable) {
+        HostPool hostPool = hostPool(connection.host, connection.port);
+        if (reusable && !connection.socket.isClosed()) {
+            connection.lastUsed = System.nanoTime();
+            synchronized (hostPool) {
+                hostPool.idle.addFirst(connection);
+            }
+        } else {
+            connection.closeQuietly();
+        }
+        hostPool.permits.release();
+    }
+
+    // Closes every idle socket past its timeout, returns how many were closed
+    public synchronized int evictIdle() {
+        int count = 0;
+        for (HostPool hostPool : hosts.values()) {
+            synchronized (hostPool) {
+                count += evictExpired(hostPool);
+            }
+        }
+        return count;
+    }
+
+    private int evictExpired(HostPool hostPool) {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        int count = 0;
+        Iterator<PooledConnection> iterator = hostPool.idle.iterator();
+        while (iterator.hasNext()) {
+            PooledConnection connection = iterator.next();
+            if (connection.lastUsed < cutoff) {
+                iterator.remove();
+                connection.closeQuietly();
+                count++;
+            }
+        }
+        evicted.addAndGet(count);
+        return count;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (HostPool hostPool : hosts.values()) {
+            synchronized (hostPool) {
+                hostPool.idle.forEach(PooledConnection::closeQuietly);
+                hostPool.idle.clear();
+            }
+        }
+    }
+
+    public String stats() {
+        return "created=" + created.get() + ", reused=" + reused.get() + ", evicted=" + evicted.get();
+    }
+
+    // ============ ONE PERSISTENT CONNECTION ============
+    public static class PooledConnection {
+        private final String host;
+        private final int port;
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private long lastUsed = System.nanoTime();
+        private boolean reused;
+
+        PooledConnection(String host, int port, Socket socket) throws IOException {
+            this.host = host;
+            this.port = port;
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 8 * 1024);
+        }
+
+        // true if this socket was used before, i.e. the server may have closed it meanwhile
+        public boolean isReused() {
+            return reused;
+        }
+
+        // Buffered: call flush() after the last request so several requests can share one packet
+        public void writeRequest(String method, String path, Map<String, String> extraHeaders) throws IOException {
+            StringBuilder request = new StringBuilder();
+            request.append(method).append(' ').append(path).append(" HTTP/1.1\r\n");
+            request.append("Host: ").append(host).append(port == 80 ? "" : ":" + port).append("\r\n");
+            extraHeaders.forEach((name, value) -> request.append(name).append(": ").append(value).append("\r\n"));
+            request.append("\r\n"); // Empty line ends headers
+            out.write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        // Reads status line + headers only, the body is still on the socket
+        public HttpStreamingResponse readResponseHead(boolean headRequest,
+                                                      HttpStreamingResponse.ReleaseCallback releaseCallback)
+                throws IOException {
+            String statusLine = HttpBodyInputStream.readLine(in);
+            if (statusLine == null) {
+                throw new EOFException("Connection closed by server");
+            }
+            List<String> headerLines = readHeaderLines();
+            Map<String, String> headers = HttpResponse.parseHeaders(headerLines);
+            HttpBodyInputStream body;
+            try {
+                body = HttpBodyInputStream.forResponse(
+                        in, HttpResponse.parseStatusCode(statusLine), headers, headRequest);
+            } catch (IllegalArgumentException e) { // also NumberFormatException: bad status code or Content-Length
+                throw new IOException("Malformed response head: " + e.getMessage(), e);
+            }
+            return new HttpStreamingResponse(statusLine, headerLines, headers, body, releaseCallback);
+        }
+
+        // Whole response in memory, the socket stays with the caller
+        public HttpResponse readResponse(boolean headRequest) throws IOException {
+            HttpStreamingResponse response = readResponseHead(headRequest, reusable -> { });
+            byte[] body = response.body().readAllBytes();
+            if (((HttpBodyInputStream) response.body()).endsWithConnection()) {
+                response.getHeaders().put("Connection", "close");
+            }
+            return new HttpResponse(response.statusLine(), response.getHeaderLines(), response.getHeaders(),
+                    body);
+        }
+
+        private List<String> readHeaderLines() throws IOException {
+            List<String> headerLines = new ArrayList<>();
+            String line;
+            while ((line = HttpBodyInputStream.readLine(in)) != null && !line.isEmpty()) {
+                headerLines.add(line);
+            }
+            return headerLines;
+        }
+
+        void closeQuietly() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package networkingIO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Parsed HTTP/1.1 response. Header names are case-insensitive ("content-length" == "Content-Length").
+// A repeated header is one map entry holding every value; headerLines keep the head as it was received.
+public class HttpResponse {
+    private final String statusLine;
+    private final int statusCode;
+    private final List<String> headerLines;
+    private final Map<String, String> headers;
+    private final byte[] body;
+
+    public HttpResponse(String statusLine, List<String> headerLines, Map<String, String> headers, byte[] body) {
+        this.statusLine = statusLine;
+        this.statusCode = parseStatusCode(statusLine);
+        this.headerLines = headerLines;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    static int parseStatusCode(String statusLine) {
+        // "HTTP/1.1 200 OK"
+        String[] parts = statusLine.split(" ", 3);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Bad status line: " + statusLine);
+        }
+        return Integer.parseInt(parts[1]);
+    }
+
+    static Map<String, String> newHeaderMap() {
+        return new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    // "Name: value" lines → map. Repeats are joined with ", " (RFC 9110 5.3), except Set-Cookie,
+    // whose values may contain commas themselves ("Expires=Wed, 21 Oct ..."): those are joined with "\n".
+    static Map<String, String> parseHeaders(List<String> headerLines) {
+        Map<String, String> headers = newHeaderMap();
+        for (String line : headerLines) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                String name = line.substring(0, colon).trim();
+                String separator = name.equalsIgnoreCase("Set-Cookie") ? "\n" : ", ";
+                headers.merge(name, line.substring(colon + 1).trim(), (first, next) -> first + separator + next);
+            }
+        }
+        return headers;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public List<String> getHeaderLines() {
+        return headerLines;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getBodyAsString() {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder response = new StringBuilder(statusLine).append("\n");
+        headerLines.forEach(line -> response.append(line).append("\n")); // wire order, repeats included
+        return response.append("\n").append(getBodyAsString()).toString();
+    }
+}
@@ -0,0 +1,118 @@
+package networkingIO;
+
+/*
+ * Response whose status and headers are available immediately while the body
+ * is still on the wire. Memory stays constant no matter how big the body is:
+ *
+ *   HttpResponse:           socket → byte[] (whole body in memory) → you
+ *   HttpStreamingResponse:  socket → 64KB buffer → you / file → 64KB buffer → ...
+ *
+ * Always close it (try-with-resources): that hands the socket back to the pool,
+ * or closes it if the body was not read to the end.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class HttpStreamingResponse implements Closeable {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    // Gets told whether the socket can be reused once the response is closed
+    public interface ReleaseCallback {
+        void release(boolean reusable);
+    }
+
+    private final String statusLine;
+    private final int statusCode;
+    private final List<String> headerLines;
+    private final Map<String, String> headers;
+    private final HttpBodyInputStream body;
+    private final ReleaseCallback releaseCallback;
+    private boolean closed;
+
+    HttpStreamingResponse(String statusLine, List<String> headerLines, Map<String, String> headers,
+                          HttpBodyInputStream body, ReleaseCallback releaseCallback) {
+        this.statusLine = statusLine;
+        this.statusCode = HttpResponse.parseStatusCode(statusLine);
+        this.headerLines = headerLines;
+        this.headers = headers;
+        this.body = body;
+        this.releaseCallback = releaseCallback;
+    }
+
+    String statusLine() {
+        return statusLine;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public List<String> getHeaderLines() {
+        return headerLines;
+    }
+
+    public InputStream body() {
+        return body;
+    }
+
+    public ReadableByteChannel bodyChannel() {
+        return Channels.newChannel(body);
+    }
+
+    // Push style: the consumer gets each chunk as a flipped ByteBuffer, valid only during the call
+    public long forEachChunk(Consumer<ByteBuffer> consumer) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(chunk);
+        long total = 0;
+        int n;
+        while ((n = body.read(chunk, 0, chunk.length)) != -1) {
+            view.clear().limit(n);
+            consumer.accept(view);
+            total += n;
+        }
+        return total;
+    }
+
+    // Writes the body into the file starting at position, one 64KB chunk at a time
+    public long transferTo(FileChannel file, long position) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(chunk);
+        long written = 0;
+        int n;
+        while ((n = body.read(chunk, 0, chunk.length)) != -1) {
+            view.clear().limit(n);
+            while (view.hasRemaining()) {
+                written += file.write(view, position + written); // positional write, file position untouched
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean reusable = body.isComplete() && !body.endsWithConnection()
+                && !"close".equalsIgnoreCase(headers.get("Connection"));
+        releaseCallback.release(reusable);
+    }
+}
@@ -0,0 +1,180 @@
+package networkingIO;
+
+/*
+ * Tiny loopback HTTP/1.1 server used to measure the HTTP clients.
+ *   GET /         → fixed body with Content-Length
+ *   GET /chunked  → same body with Transfer-Encoding: chunked
+ *   GET /stream/N → N bytes (the body repeated), streamed with Content-Length
+ * HEAD and "Range: bytes=start-end" (→ 206 Partial Content) work on / and /stream/N.
+ * Keeps the connection open unless the client sends "Connection: close".
+ */
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HttpStubServer {
+    private final int port;
+    private final byte[] body;
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean rangesSupported = true;
+    private final AtomicInteger rangesToBreak = new AtomicInteger();
+
+    public HttpStubServer(int port, byte[] body) {
+        this.port = port;
+        this.body = body;
+    }
+
+    public void setRangesSupported(boolean rangesSupported) {
+        this.rangesSupported = rangesSupported;
+    }
+
+    // The next count range responses are cut off halfway, to exercise client retries
+    public void breakNextRanges(int count) {
+        rangesToBreak.set(count);
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port), 1024);
+
+        Thread acceptor = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    threads.submit(() -> serve(socket));
+                } catch (IOException e) {
+                    // closed by stop()
+                }
+            }
+        }, "http-stub-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() throws IOException {
+        serverSocket.close();
+        threads.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+
+            String requestLine;
+            while ((requestLine = readLine(in)) != null && !requestLine.isEmpty()) {
+                Map<String, String> headers = HttpResponse.newHeaderMap();
+                String line;
+                while ((line = readLine(in)) != null && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        headers.put(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+                    }
+                }
+
+                String[] parts = requestLine.split(" ");
+                boolean close = "close".equalsIgnoreCase(headers.get("Connection"));
+                if (!writeResponse(out, parts[0], parts[1], headers.get("Range"), close)) {
+                    out.flush();
+                    break; // simulated failure: drop the connection mid-body
+                }
+
+                // Only flush when no pipelined request is already waiting → one packet per batch
+                if (in.available() == 0) {
+                    out.flush();
+                }
+                if (close) {
+                    break;
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    // Returns false if the response was deliberately cut short
+    private boolean writeResponse(OutputStream out, String method, String path, String range, boolean close)
+            throws IOException {
+        String connection = close ? "close" : "keep-alive";
+        if (path.startsWith("/chunked")) {
+            out.write(("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\nConnection: " + connection + "\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            int chunkSize = 4096;
+            for (int offset = 0; offset < body.length; offset += chunkSize) {
+                int size = Math.min(chunkSize, body.length - offset);
+                out.write((Integer.toHexString(size) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                out.write(body, offset, size);
+                out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            }
+            out.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            return true;
+        }
+
+        long size = path.startsWith("/stream/") ? Long.parseLong(path.substring("/stream/".length())) : body.length;
+        long start = 0;
+        long end = size - 1;
+        String status = "200 OK";
+        String extraHeaders = rangesSupported ? "Accept-Ranges: bytes\r\n" : "";
+
+        if (rangesSupported && range != null && range.startsWith("bytes=")) {
+            // "bytes=100-199" or "bytes=100-"
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            start = Long.parseLong(bounds[0]);
+            end = bounds[1].isEmpty() ? size - 1 : Math.min(Long.parseLong(bounds[1]), size - 1);
+            if (start > end) {
+                out.write(("HTTP/1.1 416 Range Not Satisfiable\r\nContent-Range: bytes */" + size
+                        + "\r\nContent-Length: 0\r\nConnection: " + connection + "\r\n\r\n")
+                        .getBytes(StandardCharsets.ISO_8859_1));
+                return true;
+            }
+            status = "206 Partial Content";
+            extraHeaders += "Content-Range: bytes " + start + "-" + end + "/" + size + "\r\n";
+        }
+
+        long length = end - start + 1;
+        out.write(("HTTP/1.1 " + status + "\r\nContent-Length: " + length + "\r\n" + extraHeaders
+                + "Connection: " + connection + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        if ("HEAD".equals(method)) {
+            return true;
+        }
+
+        boolean broken = status.startsWith("206") && rangesToBreak.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+        writeBody(out, start, broken ? start + length / 2 : end + 1);
+        return !broken;
+    }
+
+    // Byte at absolute position p is body[p % body.length], so any range can be generated on the fly
+    private void writeBody(OutputStream out, long from, long toExclusive) throws IOException {
+        byte[] block = new byte[64 * 1024];
+        long position = from;
+        while (position < toExclusive) {
+            int n = (int) Math.min(block.length, toExclusive - position);
+            for (int i = 0; i < n; i++) {
+                block[i] = body[(int) ((position + i) % body.length)];
+            }
+            out.write(block, 0, n);
+            position += n;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return b == -1 && line.length() == 0 ? null : line.toString();
+    }
+}
@@ -8,98 +8,398 @@ package networkingIO;
     Client Socket ←→ Network ←→ Server Socket
  */
 
+import benchmark.LatencyHistogram;
+
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.URI;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 public class NetworkingIO {
 
     // ============= SIMPLE BLOCKING SERVER ==============
-    private static class BlockingServer {
+    public static class BlockingServer {
         private int port;
+        private volatile ServerSocket serverSocket;
+        private volatile boolean verbose = true;
+        private volatile boolean stopped;
 
         public BlockingServer(int port) {
             this.port = port;
         }
 
+        public void setVerbose(boolean verbose) {
+            this.verbose = verbose;
+        }
+
         public void start() {
             try (ServerSocket serverSocket = new ServerSocket(port)) {
+                this.serverSocket = serverSocket;
                 System.out.println("✅ Server started on port " + port);
                 System.out.println("Waiting for clients...\n");
 
                 while (true) {
                     // Accept connection (blocks until client connects)
                     Socket clientSocket = serverSocket.accept();
-                    System.out.println("✅ Client connected: " + clientSocket.getInetAddress().getHostAddress());
+                    if (verbose) {
+                        System.out.println("✅ Client connected: " + clientSocket.getInetAddress().getHostAddress());
+                    }
 
                     // Handle client (blocks current thread)
                     handleClient(clientSocket);
                 }
             } catch (IOException ex) {
-                ex.printStackTrace();
+                if (!stopped) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+
+        public void stop() throws IOException {
+            stopped = true;
+            if (serverSocket != null) {
+                serverSocket.close();
             }
         }
 
         public void handleClient(Socket socket) {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            try (socket;
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
                  PrintWriter out = new PrintWriter(socket.getOutputStream(), true);) {
 
                 String message;
                 while ((message = reader.readLine()) != null) {
-                    System.out.println("<- Received: " + message);
+                    if (verbose) {
+                        System.out.println("<- Received: " + message);
+                    }
 
                     String response = "Echo: " + message;
                     out.println(response);
-                    System.out.println("-> Sent: " + response);
+                    if (verbose) {
+                        System.out.println("-> Sent: " + response);
+                    }
 
                     if ("bye".equalsIgnoreCase(message)) {
                         break;
                     }
                 }
 
-                System.out.println("Client disconnected\n");
+                if (verbose) {
+                    System.out.println("Client disconnected\n");
+                }
 
             } catch (IOException e) {
-                throw new RuntimeException(e);
+                // One broken client must not take the whole server down
+                System.err.println("Client error: " + e.getMessage());
             }
         }
     }
 
     // ========== MULTI-THREADING SERVER ===========
-    private static class MultiThreadedServer {
+    // Thread model used to run handleClient for each accepted socket
+    public enum ThreadingMode {
+        FIXED_POOL,       // 10 platform threads, client 11+ waits in the pool queue
+        VIRTUAL_THREADS   // one virtual thread per connection, idle clients cost almost nothing
+    }
+
+    // What the acceptor does with a connection once the admission limit is reached
+    public enum OverloadPolicy {
+        REJECT_BUSY,   // reply "Busy" and close: the client knows at once and can back off or go elsewhere
+        CLOSE,         // close without a word: cheapest, the client just sees EOF
+        BLOCK_ACCEPT   // stop calling accept(): the kernel backlog fills, then new SYNs are dropped
+    }
+
+    // Counters shared by every connection of one server
+    public static class ConnectionStats {
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peakActive = new AtomicInteger();
+        private final AtomicLong messages = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final LatencyHistogram queueWait = new LatencyHistogram(); // accept → a thread picks it up
+
+        void connectionRejected() {
+            rejected.incrementAndGet();
+        }
+
+        void connectionStarted(long queueWaitNanos) {
+            queueWait.record(queueWaitNanos);
+        }
+
+        void connectionOpened() {
+            accepted.incrementAndGet();
+            int now = active.incrementAndGet();
+            peakActive.accumulateAndGet(now, Math::max);
+        }
+
+        void connectionClosed(long connectionMessages) {
+            active.decrementAndGet();
+            messages.addAndGet(connectionMessages);
+        }
+
+        public long getAccepted() { return accepted.get(); }
+        public int getActive() { return active.get(); }
+        public int getPeakActive() { return peakActive.get(); }
+        public long getMessages() { return messages.get(); }
+        public long getRejected() { return rejected.get(); }
+        public LatencyHistogram getQueueWait() { return queueWait; }
+
+        @Override
+        public String toString() {
+            return "accepted=" + getAccepted() + ", active=" + getActive() +
+                    ", peakActive=" + getPeakActive() + ", messages=" + getMessages() +
+                    ", rejected=" + getRejected() + ", queueWait " + queueWait.summary();
+        }
+    }
+
+    /*
+     * Admission control: a connection is admitted only while fewer than `limit` are in flight
+     * (running + waiting for a thread). Without it Executors.newFixedThreadPool queues every
+     * accepted socket in an unbounded LinkedBlockingQueue:
+     *
+     *   overload → queue grows → every client waits longer → clients time out and retry → more load
+     *
+     * With a bounded queue the excess is turned away at the door (OverloadPolicy) and the clients
+     * that do get in are served with bounded latency. The limit is either static (pool + queue)
+     * or an AdaptiveLimit that follows the measured queue wait.
+     */
+    public static class MultiThreadedServer {
+        private static final int POOL_SIZE = 10;
+        private static final byte[] BUSY = "Busy, try again later\n".getBytes(StandardCharsets.UTF_8);
+
         private int port;
+        private final ThreadingMode mode;
+        private final int backlog;
+        private final int socketBufferSize; // SO_RCVBUF / SO_SNDBUF, 0 = OS default
+        private final ConnectionStats stats = new ConnectionStats();
         private ExecutorService threadPool;
+        private volatile ServerSocket serverSocket;
+        private volatile boolean verbose = true;
+        private volatile boolean stopped;
+
+        private int queueCapacity = Integer.MAX_VALUE; // unbounded until setAdmission()
+        private OverloadPolicy overloadPolicy = OverloadPolicy.REJECT_BUSY;
+        private AdaptiveLimit adaptiveLimit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final ReentrantLock admissionLock = new ReentrantLock();
+        private final Condition capacityFreed = admissionLock.newCondition();
 
         public MultiThreadedServer(int port) {
+            this(port, ThreadingMode.FIXED_POOL, 50, 0);
+        }
+
+        public MultiThreadedServer(int port, ThreadingMode mode, int backlog, int socketBufferSize) {
             this.port = port;
-            this.threadPool = Executors.newFixedThreadPool(10);
+            this.mode = mode;
+            this.backlog = backlog;
+            this.socketBufferSize = socketBufferSize;
+        }
+
+        public ConnectionStats getStats() {
+            return stats;
+        }
+
+        public void setVerbose(boolean verbose) {
+            this.verbose = verbose;
+        }
+
+        // FIXED_POOL: at most queueCapacity sockets wait for one of the pool threads.
+        // VIRTUAL_THREADS has no queue (every connection gets a thread), so it caps connections instead.
+        public void setAdmission(int queueCapacity, OverloadPolicy overloadPolicy) {
+            this.queueCapacity = queueCapacity;
+            this.overloadPolicy = overloadPolicy;
+        }
+
+        // Replaces the static limit; stays within the bounded queue set by setAdmission()
+        public void setAdaptiveLimit(AdaptiveLimit adaptiveLimit) {
+            this.adaptiveLimit = adaptiveLimit;
+        }
+
+        public AdaptiveLimit getAdaptiveLimit() {
+            return adaptiveLimit;
+        }
+
+        private int staticLimit() {
+            int workers = mode == ThreadingMode.VIRTUAL_THREADS ? 0 : POOL_SIZE;
+            return (int) Math.min(Integer.MAX_VALUE, (long) workers + queueCapacity);
+        }
+
+        private int limit() {
+            int limit = staticLimit();
+            return adaptiveLimit == null ? limit : Math.min(limit, adaptiveLimit.getLimit());
         }
 
         public void start() {
-            try (ServerSocket serverSocket = new ServerSocket(port)) {
+            try (ServerSocket serverSocket = new ServerSocket()) {
+                this.serverSocket = serverSocket;
+                serverSocket.setReuseAddress(true);
+                if (socketBufferSize > 0) {
+                    // Must be set before bind so the TCP window is negotiated for accepted sockets
+                    serverSocket.setReceiveBufferSize(socketBufferSize);
+                }
+                // backlog = how many finished handshakes the kernel holds while accept() catches up
+                serverSocket.bind(new InetSocketAddress(port), backlog);
+                threadPool = mode == ThreadingMode.VIRTUAL_THREADS
+                        ? Executors.newVirtualThreadPerTaskExecutor()
+                        : new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0, TimeUnit.MILLISECONDS, acceptQueue());
+
                 System.out.println("✓ Multi-threaded server started on port " + port);
-                System.out.println("Thread pool size: 10");
+                System.out.println(mode == ThreadingMode.VIRTUAL_THREADS
+                        ? "Threading: virtual thread per connection"
+                        : "Thread pool size: " + POOL_SIZE);
+                System.out.println("Accept backlog: " + backlog);
+                if (queueCapacity != Integer.MAX_VALUE) {
+                    System.out.println("Admission: queue " + queueCapacity + ", " + overloadPolicy
+                            + (adaptiveLimit != null ? ", adaptive " + adaptiveLimit : ""));
+                }
                 System.out.println("Waiting for clients...\n");
 
                 while (true) {
+                    if (overloadPolicy == OverloadPolicy.BLOCK_ACCEPT) {
+                        awaitCapacity();
+                    }
                     Socket clientSocket = serverSocket.accept();
-                    System.out.println("✓ Client connected: " + clientSocket.getInetAddress().getHostAddress());
+                    long acceptedNanos = System.nanoTime();
+                    if (socketBufferSize > 0) {
+                        clientSocket.setSendBufferSize(socketBufferSize);
+                    }
+                    if (verbose) {
+                        System.out.println("✓ Client connected: " + clientSocket.getInetAddress().getHostAddress());
+                    }
 
+                    if (!tryAdmit()) {
+                        reject(clientSocket);
+                        continue;
+                    }
                     // Handle each client in separate thread
-                    threadPool.submit(() -> handleClient(clientSocket));
+                    try {
+                        threadPool.execute(() -> {
+                            long queueWait = System.nanoTime() - acceptedNanos;
+                            stats.connectionStarted(queueWait);
+                            if (adaptiveLimit != null) {
+                                adaptiveLimit.onSample(queueWait);
+                            }
+                            try {
+                                handleClient(clientSocket);
+                            } finally {
+                                release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        release(); // pool already shut down
+                        reject(clientSocket);
+                    }
                 }
             } catch (IOException e) {
-                e.printStackTrace();
+                if (!stopped) {
+                    e.printStackTrace();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             } finally {
-                threadPool.shutdown();
+                if (threadPool != null) {
+                    threadPool.shutdown();
+                }
+            }
+        }
+
+        // The in-flight limit is the real bound. A bounded queue gets POOL_SIZE of slack because
+        // a finished task frees its slot just before its worker takes the next queued socket.
+        private BlockingQueue<Runnable> acceptQueue() {
+            return queueCapacity == Integer.MAX_VALUE
+                    ? new LinkedBlockingQueue<>()
+                    : new ArrayBlockingQueue<>(queueCapacity + POOL_SIZE);
+        }
+
+        private boolean tryAdmit() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit()) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            inFlight.decrementAndGet();
+            if (overloadPolicy == OverloadPolicy.BLOCK_ACCEPT) {
+                admissionLock.lock();
+                try {
+                    capacityFreed.signal();
+                } finally {
+                    admissionLock.unlock();
+                }
+            }
+        }
+
+        // Wakes up now and then anyway: an adaptive limit can grow without any connection finishing
+        private void awaitCapacity() throws InterruptedException {
+            admissionLock.lock();
+            try {
+                while (!stopped && inFlight.get() >= limit()) {
+                    capacityFreed.await(10, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                admissionLock.unlock();
+            }
+        }
+
+        // Runs on the acceptor thread, so it must stay cheap: one small write into an empty send buffer
+        private void reject(Socket socket) {
+            stats.connectionRejected();
+            try (socket) {
+                if (overloadPolicy == OverloadPolicy.REJECT_BUSY) {
+                    socket.getOutputStream().write(BUSY);
+                }
+            } catch (IOException e) {
+                // the client is gone already, nothing to tell it
+            }
+        }
+
+        // Closing the listener makes accept() throw, which ends start()
+        public void stop() throws IOException {
+            stopped = true;
+            if (serverSocket != null) {
+                serverSocket.close();
             }
         }
 
         public void handleClient(Socket socket) {
             String clientId = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+            long messages = 0;
+            stats.connectionOpened();
 
             try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
                  PrintWriter writer = new PrintWriter(socket.getOutputStream(), true)) {
@@ -108,7 +408,10 @@ public class NetworkingIO {
 
                 String message;
                 while ((message = in.readLine()) != null) {
-                    System.out.println("[" + clientId + "] ← " + message);
+                    messages++;
+                    if (verbose) {
+                        System.out.println("[" + clientId + "] ← " + message);
+                    }
 
                     String response = "Echo: " + message;
                     writer.println(response);
@@ -117,10 +420,13 @@ public class NetworkingIO {
                         break;
                     }
                 }
-                System.out.println("[" + clientId + "] Disconnected\n");
+                if (verbose) {
+                    System.out.println("[" + clientId + "] Disconnected after " + messages + " messages\n");
+                }
             } catch (IOException e) {
                 System.err.println("[" + clientId + "] Error: " + e.getMessage());
             } finally {
+                stats.connectionClosed(messages);
                 try {
                     socket.close();
                 } catch (IOException e) {
@@ -130,9 +436,173 @@ public class NetworkingIO {
         }
     }
 
+    // ========== FIXED POOL vs VIRTUAL THREADS BENCHMARK ==========
+    // Every client connects, says hello, stays idle for a while and then says bye.
+    // With a fixed pool the idle clients hold the 10 threads, everyone else queues.
+    public void threadingModeBenchmark() throws InterruptedException {
+        System.out.println("=== Fixed Pool vs Virtual Threads (loopback) ===\n");
+
+        int[] clientCounts = {100, 1_000, 10_000};
+        int idleMillis = 20;
+        int port = 9191;
+
+        for (int clients : clientCounts) {
+            for (ThreadingMode mode : ThreadingMode.values()) {
+                MultiThreadedServer server = new MultiThreadedServer(port, mode, 4096, 64 * 1024);
+                server.setVerbose(false);
+                Thread serverThread = new Thread(server::start, "server-" + mode);
+                serverThread.start();
+                Thread.sleep(200); // let the listener bind
+
+                long start = System.nanoTime();
+                int failures = runIdleClients(port, clients, idleMillis);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+
+                try {
+                    server.stop();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                serverThread.join();
+
+                System.out.println(String.format("%-16s clients=%-6d time=%6d ms  failures=%d  %s",
+                        mode, clients, millis, failures, server.getStats()));
+            }
+        }
+    }
+
+    private int runIdleClients(int port, int clients, int idleMillis) throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+
+        // Clients run on virtual threads so the load generator is never the bottleneck
+        try (ExecutorService clientPool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                clientPool.submit(() -> {
+                    try (Socket socket = new Socket("localhost", port);
+                         BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                         PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+                        socket.setSoTimeout(120_000);
+
+                        in.readLine(); // welcome
+                        out.println("hello");
+                        in.readLine();
+                        Thread.sleep(idleMillis); // mostly idle connection
+                        out.println("bye");
+                        in.readLine();
+                    } catch (IOException | InterruptedException e) {
+                        failures.incrementAndGet();
+                    }
+                });
+            }
+        } // close() waits for every client to finish
+
+        return failures.get();
+    }
+
+    // ========== ADMISSION CONTROL UNDER OVERLOAD ==========
+    // New clients arrive at a fixed rate (open loop) faster than 10 threads can serve them:
+    // each connection holds its thread for holdMillis, so capacity is ~10 × 1000 / holdMillis per second.
+    public void admissionControlBenchmark() throws InterruptedException {
+        System.out.println("=== Admission Control (10 threads, offered load 2.5x capacity) ===\n");
+
+        int holdMillis = 50;
+        int arrivalsPerSecond = 500; // capacity is ~200/s
+        int durationMillis = 3_000;
+        int port = 9192;
+
+        runAdmission("unbounded queue", port++, Integer.MAX_VALUE, OverloadPolicy.REJECT_BUSY, null,
+                arrivalsPerSecond, durationMillis, holdMillis);
+        runAdmission("queue 20, reject busy", port++, 20, OverloadPolicy.REJECT_BUSY, null,
+                arrivalsPerSecond, durationMillis, holdMillis);
+        runAdmission("queue 20, close", port++, 20, OverloadPolicy.CLOSE, null,
+                arrivalsPerSecond, durationMillis, holdMillis);
+        runAdmission("queue 20, block accept", port++, 20, OverloadPolicy.BLOCK_ACCEPT, null,
+                arrivalsPerSecond, durationMillis, holdMillis);
+        runAdmission("queue 500, adaptive 25ms", port, 500, OverloadPolicy.REJECT_BUSY,
+                new AdaptiveLimit(20, 10, 510, 25), arrivalsPerSecond, durationMillis, holdMillis);
+    }
+
+    private void runAdmission(String name, int port, int queueCapacity, OverloadPolicy policy, AdaptiveLimit limit,
+                              int arrivalsPerSecond, int durationMillis, int holdMillis) throws InterruptedException {
+        MultiThreadedServer server = new MultiThreadedServer(port, ThreadingMode.FIXED_POOL, 128, 0);
+        server.setVerbose(false);
+        server.setAdmission(queueCapacity, policy);
+        server.setAdaptiveLimit(limit);
+        Thread serverThread = new Thread(server::start, "server-" + port);
+        serverThread.start();
+        Thread.sleep(200);
+
+        LatencyHistogram served = new LatencyHistogram();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        int clients = arrivalsPerSecond * durationMillis / 1000;
+        long interval = 1_000_000_000L / arrivalsPerSecond;
+        long start = System.nanoTime();
+
+        try (ExecutorService clientPool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                long arrival = start + i * interval;
+                clientPool.submit(() -> {
+                    long wait = arrival - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    }
+                    try (Socket socket = new Socket()) {
+                        socket.connect(new InetSocketAddress("localhost", port), 2_000);
+                        socket.setSoTimeout(2_000); // a client gives up after 2s, like a real caller would
+                        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+                        String welcome = in.readLine();
+                        if (welcome == null || welcome.startsWith("Busy")) {
+                            rejected.incrementAndGet(); // told right away: can retry elsewhere
+                            return null;
+                        }
+                        out.println("hello");
+                        in.readLine();
+                        Thread.sleep(holdMillis); // the connection holds a server thread meanwhile
+                        out.println("bye");
+                        in.readLine();
+                        served.record(System.nanoTime() - arrival); // from when the client wanted to start
+                    } catch (IOException e) {
+                        failed.incrementAndGet(); // timed out or reset
+                    }
+                    return null;
+                });
+            }
+        }
+
+        try {
+            server.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        serverThread.join();
+
+        System.out.printf("%-26s served=%-4d rejected=%-4d failed=%-4d served latency %s%n",
+                name, served.getCount(), rejected.get(), failed.get(), served.summary());
+        System.out.println("    server: " + server.getStats()
+                + (limit != null ? "\n    " + limit : ""));
+    }
+
     public static class SimpleHttpClient {
+        private final HttpConnectionPool pool;
+
+        public SimpleHttpClient() {
+            this(new HttpConnectionPool(6, 30_000)); // 6 per host, like browsers
+        }
 
+        public SimpleHttpClient(HttpConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        // Status line and header lines as received (order and repeats kept), then the body
         public String fetch(String url) throws IOException {
+            return get(url).toString();
+        }
+
+        // One socket per request + Connection: close (kept for comparison)
+        public String fetchWithNewConnection(String url) throws IOException {
             URL urlObj = new URL(url);
             String host = urlObj.getHost();
             int port = urlObj.getPort() == -1 ? 80 : urlObj.getPort();
@@ -159,21 +629,296 @@ public class NetworkingIO {
                 return response.toString();
             }
         }
+
+        // GET over a pooled keep-alive connection, whole body in memory
+        public HttpResponse get(String url) throws IOException {
+            try (HttpStreamingResponse response = stream("GET", url, Map.of())) {
+                byte[] body = response.body().readAllBytes();
+                return new HttpResponse(response.statusLine(), response.getHeaderLines(), response.getHeaders(),
+                        body);
+            }
+        }
+
+        public HttpStreamingResponse stream(String url) throws IOException {
+            return stream("GET", url, Map.of());
+        }
+
+        // Returns as soon as the headers are in, the body is read on demand from the socket
+        public HttpStreamingResponse stream(String method, String url, Map<String, String> headers) throws IOException {
+            URI uri = URI.create(url);
+            HttpConnectionPool.PooledConnection connection = pool.acquire(uri.getHost(), portOf(uri));
+            try {
+                return send(connection, method, uri, headers);
+            } catch (IOException e) {
+                pool.release(connection, false);
+                // Only idempotent requests may be resent: a POST may have been processed before the socket died
+                if (!connection.isReused() || !(method.equals("GET") || method.equals("HEAD"))) {
+                    throw e;
+                }
+                // The server closed the idle socket under us, retry once on a fresh one
+                connection = pool.acquire(uri.getHost(), portOf(uri));
+                try {
+                    return send(connection, method, uri, headers);
+                } catch (IOException | RuntimeException retryFailure) {
+                    pool.release(connection, false);
+                    throw retryFailure;
+                }
+            } catch (RuntimeException e) {
+                pool.release(connection, false); // never leak the socket and its permit
+                throw e;
+            }
+        }
+
+        // Streams the body into a file, memory use is one 64KB chunk whatever the size
+        public long download(String url, Path target) throws IOException {
+            try (HttpStreamingResponse response = stream(url);
+                 FileChannel file = FileChannel.open(target, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (response.getStatusCode() != 200) {
+                    throw new IOException("Download failed: HTTP " + response.getStatusCode());
+                }
+                return response.transferTo(file, 0);
+            }
+        }
+
+        /*
+         * HTTP pipelining: send ALL requests, then read the responses in order.
+         *   without: GET1 → resp1 → GET2 → resp2 → GET3 → resp3   (one round trip each)
+         *   with:    GET1 GET2 GET3 → resp1 resp2 resp3           (one round trip total)
+         * All urls must point to the same host:port.
+         */
+        public List<HttpResponse> getPipelined(List<String> urls) throws IOException {
+            URI first = URI.create(urls.get(0));
+            HttpConnectionPool.PooledConnection connection = pool.acquire(first.getHost(), portOf(first));
+            List<HttpResponse> responses = new ArrayList<>(urls.size());
+            boolean reusable = false;
+
+            try {
+                for (String url : urls) {
+                    URI uri = URI.create(url);
+                    if (!uri.getHost().equals(first.getHost()) || portOf(uri) != portOf(first)) {
+                        throw new IllegalArgumentException("Pipelined urls must share one host: " + url);
+                    }
+                    connection.writeRequest("GET", pathOf(uri), Map.of());
+                }
+                connection.flush();
+
+                for (int i = 0; i < urls.size(); i++) {
+                    HttpResponse response = connection.readResponse(false);
+                    responses.add(response);
+                    if (!isReusable(response) && i < urls.size() - 1) {
+                        throw new IOException("Server closed the connection after " + (i + 1) + " pipelined responses");
+                    }
+                }
+                reusable = isReusable(responses.get(responses.size() - 1));
+                return responses;
+            } finally {
+                pool.release(connection, reusable);
+            }
+        }
+
+        private HttpStreamingResponse send(HttpConnectionPool.PooledConnection connection, String method, URI uri,
+                                           Map<String, String> headers) throws IOException {
+            connection.writeRequest(method, pathOf(uri), headers);
+            connection.flush();
+            return connection.readResponseHead("HEAD".equals(method),
+                    reusable -> pool.release(connection, reusable));
+        }
+
+        private static boolean isReusable(HttpResponse response) {
+            return !"close".equalsIgnoreCase(response.getHeader("Connection"));
+        }
+
+        private static int portOf(URI uri) {
+            return uri.getPort() == -1 ? 80 : uri.getPort();
+        }
+
+        private static String pathOf(URI uri) {
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+        }
+
+        public HttpConnectionPool getPool() {
+            return pool;
+        }
+    }
+
+    // ========== HTTP CLIENT BENCHMARK (loopback stub) ==========
+    public void httpClientBenchmark() throws IOException {
+        System.out.println("=== New Socket per Request vs Keep-Alive Pool vs Pipelining ===\n");
+
+        int port = 9292;
+        int requests = 5_000;
+        int pipelineDepth = 16;
+        HttpStubServer stub = new HttpStubServer(port, "Hello from the stub server!".getBytes());
+        stub.start();
+        String url = "http://localhost:" + port + "/";
+
+        SimpleHttpClient client = new SimpleHttpClient();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            client.fetchWithNewConnection(url);
+        }
+        long oneShotNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            client.get(url);
+        }
+        long pooledNanos = System.nanoTime() - start;
+
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < pipelineDepth; i++) {
+            batch.add(i % 2 == 0 ? url : url + "chunked");
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < requests / pipelineDepth; i++) {
+            client.getPipelined(batch);
+        }
+        long pipelinedNanos = System.nanoTime() - start;
+
+        stub.stop();
+        client.getPool().close();
+
+        System.out.println("Requests: " + requests);
+        System.out.println("  New socket per request: " + requests * 1_000_000_000L / oneShotNanos + " req/s");
+        System.out.println("  Keep-alive pool:        " + requests * 1_000_000_000L / pooledNanos + " req/s");
+        System.out.println("  Pipelined (depth " + pipelineDepth + "):   "
+                + (requests / pipelineDepth) * pipelineDepth * 1_000_000_000L / pipelinedNanos + " req/s");
+        System.out.println("  Pool: " + client.getPool().stats());
+    }
+
+    // ========== STREAMING DOWNLOAD (constant memory) ==========
+    public void streamingDownloadDemo() throws IOException {
+        System.out.println("=== Streaming a large body to disk ===\n");
+
+        int port = 9293;
+        long size = 512L * 1024 * 1024; // 512MB
+        HttpStubServer stub = new HttpStubServer(port, "0123456789abcdef".getBytes());
+        stub.start();
+
+        SimpleHttpClient client = new SimpleHttpClient();
+        Path target = Files.createTempFile("download", ".bin");
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        long start = System.nanoTime();
+        long bytes = client.download("http://localhost:" + port + "/stream/" + size, target);
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.println("Downloaded: " + bytes / (1024 * 1024) + " MB in " + millis + " ms ("
+                + bytes / 1024 / millis + " MB/s)");
+        System.out.println("File size on disk: " + Files.size(target) / (1024 * 1024) + " MB");
+        System.out.println("Heap growth: " + (heapAfter - heapBefore) / 1024 + " KB (body never held in memory)");
+
+        Files.delete(target);
+        stub.stop();
+        client.getPool().close();
+    }
+
+    // ========== PARALLEL RANGED DOWNLOAD ==========
+    public void rangedDownloadDemo() throws IOException {
+        System.out.println("=== Parallel Ranged Download ===\n");
+
+        int port = 9294;
+        long size = 256L * 1024 * 1024; // 256MB
+        byte[] pattern = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes();
+        HttpStubServer stub = new HttpStubServer(port, pattern);
+        stub.start();
+        String url = "http://localhost:" + port + "/stream/" + size;
+        Path target = Files.createTempFile("ranged", ".bin");
+
+        for (int parallelism : new int[]{1, 4, 8}) {
+            stub.breakNextRanges(parallelism > 1 ? 2 : 0); // two ranges fail halfway and must be retried
+            RangedDownloader downloader = new RangedDownloader(parallelism, 3);
+
+            long start = System.nanoTime();
+            long bytes = downloader.download(url, target);
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+            System.out.println("Parallelism " + parallelism + ": " + bytes / (1024 * 1024) + " MB in " + millis
+                    + " ms, retries=" + downloader.getRetries() + ", content ok=" + verifyPattern(target, pattern, size));
+        }
+
+        // Server without range support → falls back to one stream
+        stub.setRangesSupported(false);
+        long bytes = new RangedDownloader(8, 3).download(url, target);
+        System.out.println("No ranges: " + bytes / (1024 * 1024) + " MB, content ok=" + verifyPattern(target, pattern, size));
+
+        Files.delete(target);
+        stub.stop();
+    }
+
+    private boolean verifyPattern(Path file, byte[] pattern, long size) throws IOException {
+        if (Files.size(file) != size) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            for (long position = 0; position < size; position++) {
+                if (in.read() != (pattern[(int) (position % pattern.length)] & 0xFF)) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     // ========== REAL-WORLD: MICROSERVICE COMMUNICATION ==========
-    public static class MicroserviceClient {
-        private final String serviceHost;
-        private final int servicePort;
+    public static class MicroserviceClient implements Closeable {
+        private static final String SHARED_MEMORY_SCHEME = "shm:";
+
+        private final SocketAddress serviceAddress;     // socket transports
+        private final Path sharedMemoryDirectory;       // shared-memory rings, null otherwise
+        private RpcChannel rpcClient;
 
         public MicroserviceClient(String host, int port) {
-            this.serviceHost = host;
-            this.servicePort = port;
+            this.serviceAddress = new InetSocketAddress(host, port);
+            this.sharedMemoryDirectory = null;
+        }
+
+        // "tcp://host:port", or for a sidecar on the same host "unix:/path/to/socket"
+        // or "shm:/dev/shm/service" (the directory of a SharedMemoryRpc.Server)
+        public MicroserviceClient(String serviceAddress) {
+            if (serviceAddress.startsWith(SHARED_MEMORY_SCHEME)) {
+                this.serviceAddress = null;
+                this.sharedMemoryDirectory = Path.of(serviceAddress.substring(SHARED_MEMORY_SCHEME.length()));
+            } else {
+                this.serviceAddress = Transport.parse(serviceAddress);
+                this.sharedMemoryDirectory = null;
+            }
+        }
+
+        // Multiplexed: one long-lived connection, many calls in flight
+        public CompletableFuture<String> callUserServiceAsync(String userId) throws IOException {
+            byte[] request = ("GET_USER:" + userId).getBytes(StandardCharsets.UTF_8);
+            return rpc().call(request).thenApply(response -> new String(response, StandardCharsets.UTF_8));
         }
 
-        // Simulate calling another microservice
         public String callUserService(String userId) throws IOException {
-            try (Socket socket = new Socket(serviceHost, servicePort);
+            try {
+                return callUserServiceAsync(userId).join();
+            } catch (CompletionException e) {
+                throw new IOException("User service call failed", e.getCause());
+            }
+        }
+
+        private synchronized RpcChannel rpc() throws IOException {
+            if (rpcClient == null) {
+                rpcClient = sharedMemoryDirectory != null
+                        ? SharedMemoryRpc.Client.open(sharedMemoryDirectory, 5_000)
+                        : new RpcClient(serviceAddress, 2, 5_000);
+            }
+            return rpcClient;
+        }
+
+        // Simulate calling another microservice: new socket + object streams per call (kept for comparison)
+        public String callUserServicePerConnection(String userId) throws IOException {
+            if (!(serviceAddress instanceof InetSocketAddress tcpAddress)) {
+                throw new IOException("Per-connection calls are TCP only");
+            }
+            try (Socket socket = new Socket(tcpAddress.getHostString(), tcpAddress.getPort());
                  ObjectOutputStream out = new ObjectOutputStream(
                          socket.getOutputStream());
                  ObjectInputStream in = new ObjectInputStream(
@@ -188,6 +933,206 @@ public class NetworkingIO {
                 throw new IOException("Invalid response", e);
             }
         }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (rpcClient != null) {
+                rpcClient.close();
+                rpcClient = null;
+            }
+        }
+    }
+
+    // The user service both clients talk to
+    private static String handleUserRequest(String request) {
+        String userId = request.substring("GET_USER:".length());
+        return "User{id=" + userId + ", name='user-" + userId + "'}";
+    }
+
+    // Server for callUserServicePerConnection: one object-stream exchange per socket
+    private static class ObjectStreamUserServer {
+        private final ServerSocket serverSocket;
+        private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+
+        ObjectStreamUserServer(int port) throws IOException {
+            serverSocket = new ServerSocket(port, 1024);
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        threads.submit(() -> serve(socket));
+                    } catch (IOException e) {
+                        // closed by stop()
+                    }
+                }
+            }, "object-stream-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 ObjectOutputStream out = new ObjectOutputStream(socket.getOutputStream())) {
+                out.flush(); // stream header first, the client's ObjectInputStream waits for it
+                ObjectInputStream in = new ObjectInputStream(socket.getInputStream());
+                out.writeObject(handleUserRequest((String) in.readObject()));
+                out.flush();
+            } catch (IOException | ClassNotFoundException e) {
+                // client went away
+            }
+        }
+
+        void stop() throws IOException {
+            serverSocket.close();
+            threads.shutdownNow();
+        }
+    }
+
+    // ========== PER-CALL SOCKET vs MULTIPLEXED RPC ==========
+    public void rpcBenchmark() throws IOException, InterruptedException {
+        System.out.println("=== Per-call Socket vs Multiplexed RPC ===\n");
+
+        int legacyPort = 9390;
+        int rpcPort = 9391;
+        int calls = 5_000;
+        int concurrency = 64;
+
+        ObjectStreamUserServer legacyServer = new ObjectStreamUserServer(legacyPort);
+        RpcServer rpcServer = new RpcServer(new InetSocketAddress(rpcPort), request ->
+                handleUserRequest(new String(request, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+        rpcServer.start();
+
+        try (MicroserviceClient legacy = new MicroserviceClient("localhost", legacyPort);
+             MicroserviceClient multiplexed = new MicroserviceClient("localhost", rpcPort)) {
+
+            // Latency: one call at a time
+            long[] legacyLatencies = new long[calls];
+            long[] rpcLatencies = new long[calls];
+            for (int i = 0; i < calls; i++) {
+                long start = System.nanoTime();
+                legacy.callUserServicePerConnection(String.valueOf(i));
+                legacyLatencies[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                multiplexed.callUserService(String.valueOf(i));
+                rpcLatencies[i] = System.nanoTime() - start;
+            }
+            System.out.println("Sequential latency (" + calls + " calls):");
+            System.out.println("  Per-call socket: " + latencySummary(legacyLatencies));
+            System.out.println("  Multiplexed:     " + latencySummary(rpcLatencies));
+
+            // Throughput: per-call sockets need one thread per concurrent call
+            long start = System.nanoTime();
+            try (ExecutorService callers = Executors.newFixedThreadPool(concurrency)) {
+                for (int i = 0; i < calls; i++) {
+                    String userId = String.valueOf(i);
+                    callers.submit(() -> legacy.callUserServicePerConnection(userId));
+                }
+            }
+            long legacyNanos = System.nanoTime() - start;
+
+            // Multiplexed: keep `concurrency` calls in flight from a single thread
+            start = System.nanoTime();
+            Semaphore inFlight = new Semaphore(concurrency);
+            for (int i = 0; i < calls; i++) {
+                inFlight.acquire();
+                multiplexed.callUserServiceAsync(String.valueOf(i)).whenComplete((user, e) -> inFlight.release());
+            }
+            inFlight.acquire(concurrency); // wait for the tail
+            long rpcNanos = System.nanoTime() - start;
+
+            System.out.println("\nThroughput (" + concurrency + " concurrent calls):");
+            System.out.println("  Per-call socket: " + calls * 1_000_000_000L / legacyNanos + " calls/s");
+            System.out.println("  Multiplexed:     " + calls * 1_000_000_000L / rpcNanos + " calls/s");
+        } finally {
+            legacyServer.stop();
+            rpcServer.stop();
+        }
+    }
+
+    // ========== SAME-HOST CALLS: TCP LOOPBACK vs UNIX DOMAIN SOCKET vs SHARED MEMORY ==========
+    public void transportBenchmark() throws IOException, InterruptedException {
+        System.out.println("=== Multiplexed RPC: TCP loopback vs Unix domain socket vs shared memory ===\n");
+
+        int calls = 20_000;
+        int concurrency = 64;
+        Path socketDirectory = Files.createTempDirectory("rpc-uds");
+        String tcpAddress = "tcp://localhost:9392";
+        String unixAddress = "unix:" + socketDirectory.resolve("user-service.sock");
+
+        Function<byte[], byte[]> userService = request ->
+                handleUserRequest(new String(request, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+        RpcServer tcpServer = new RpcServer(Transport.parse(tcpAddress), userService);
+        RpcServer unixServer = new RpcServer(Transport.parse(unixAddress), userService);
+        tcpServer.start();
+        unixServer.start();
+
+        try (MicroserviceClient tcp = new MicroserviceClient(tcpAddress);
+             MicroserviceClient unix = new MicroserviceClient(unixAddress)) {
+            // Warm up both paths (JIT, connections) before measuring
+            runTransportCalls(tcp, calls / 4, concurrency);
+            runTransportCalls(unix, calls / 4, concurrency);
+
+            System.out.println("Same workload, " + calls + " calls each (sequential, then " + concurrency
+                    + " in flight):");
+            System.out.println("  TCP loopback: " + runTransportCalls(tcp, calls, concurrency));
+            System.out.println("  Unix socket:  " + runTransportCalls(unix, calls, concurrency));
+        } finally {
+            tcpServer.stop();
+            unixServer.stop();
+            Files.deleteIfExists(socketDirectory);
+        }
+
+        // Measured on its own: its polling threads would steal CPU from the socket runs
+        Path tmpfs = Path.of("/dev/shm");
+        Path ringDirectory = Files.isDirectory(tmpfs) ? Files.createTempDirectory(tmpfs, "rpc-shm")
+                : Files.createTempDirectory("rpc-shm");
+        SharedMemoryRpc.Server sharedMemoryServer = new SharedMemoryRpc.Server(ringDirectory, 1 << 20, userService);
+        sharedMemoryServer.start();
+        try (MicroserviceClient sharedMemory = new MicroserviceClient("shm:" + ringDirectory)) {
+            runTransportCalls(sharedMemory, calls / 4, concurrency);
+            System.out.println("  Shared mem:   " + runTransportCalls(sharedMemory, calls, concurrency));
+        } finally {
+            sharedMemoryServer.stop();
+            Files.deleteIfExists(ringDirectory);
+        }
+    }
+
+    // Client and server share this process, so process CPU time covers both ends of every call
+    private String runTransportCalls(MicroserviceClient client, int calls, int concurrency)
+            throws IOException, InterruptedException {
+        com.sun.management.OperatingSystemMXBean os =
+                (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            client.callUserService(String.valueOf(i));
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        long cpuBefore = os.getProcessCpuTime();
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(concurrency);
+        for (int i = 0; i < calls; i++) {
+            inFlight.acquire();
+            client.callUserServiceAsync(String.valueOf(i)).whenComplete((user, e) -> inFlight.release());
+        }
+        inFlight.acquire(concurrency);
+        inFlight.release(concurrency);
+        long nanos = System.nanoTime() - start;
+        long cpuNanos = os.getProcessCpuTime() - cpuBefore;
+
+        return String.format("%s | %d calls/s, %.1fus CPU per call", latencySummary(latencies),
+                calls * 1_000_000_000L / nanos, cpuNanos / 1_000.0 / calls);
+    }
+
+    private static String latencySummary(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return String.format("p50=%dus p99=%dus max=%dus",
+                sorted[sorted.length / 2] / 1000, sorted[(int) (sorted.length * 0.99)] / 1000,
+                sorted[sorted.length - 1] / 1000);
     }
 
     // ========== COMPARISON WITH SPRING BOOT ==========
@@ -219,7 +1164,15 @@ public class NetworkingIO {
         System.out.println("\n→ Spring Boot abstracts away socket complexity!");
     }
 
-    public void networkingIO() {
+    public void networkingIO() throws InterruptedException {
+        // threadingModeBenchmark();
+        // admissionControlBenchmark();
+        // httpClientBenchmark();
+        // streamingDownloadDemo();
+        // rangedDownloadDemo();
+        // rpcBenchmark();
+        // transportBenchmark();
+
         System.out.println("\n\n=== Starting Multi-Threaded Server ===");
         System.out.println("To test:");
         System.out.println("1. Run this program");
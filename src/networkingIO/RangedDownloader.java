@@ -0,0 +1,141 @@
+package networkingIO;
+
+/*
+ * Parallel ranged download (what download managers / aria2 do).
+
+    1. Probe:  HEAD /file              → Content-Length: 1000, Accept-Ranges: bytes
+    2. Split:  [0-249] [250-499] [500-749] [750-999]
+    3. Fetch in parallel:  GET + "Range: bytes=250-499"  → 206 Partial Content
+    4. Each range is written at its own offset: file.write(buffer, position)
+       → no locking between workers, the file position is never shared
+
+    A failed range is retried on its own, resuming from the last byte it wrote.
+    Servers without "Accept-Ranges: bytes" (or without a length) get one plain stream.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RangedDownloader {
+    private final NetworkingIO.SimpleHttpClient client;
+    private final int parallelism;
+    private final int maxRetries;
+    private final AtomicInteger retries = new AtomicInteger();
+
+    public RangedDownloader(int parallelism, int maxRetries) {
+        this.parallelism = parallelism;
+        this.maxRetries = maxRetries;
+        // One pooled socket per range worker
+        this.client = new NetworkingIO.SimpleHttpClient(new HttpConnectionPool(parallelism, 30_000));
+    }
+
+    public int getRetries() {
+        return retries.get();
+    }
+
+    public long download(String url, Path target) throws IOException {
+        long size;
+        boolean rangesSupported;
+        try (HttpStreamingResponse probe = client.stream("HEAD", url, Map.of())) {
+            if (probe.getStatusCode() != 200) {
+                throw new IOException("Probe failed: HTTP " + probe.getStatusCode());
+            }
+            String length = probe.getHeader("Content-Length");
+            size = length == null ? -1 : Long.parseLong(length.trim());
+            rangesSupported = "bytes".equalsIgnoreCase(probe.getHeader("Accept-Ranges"));
+        }
+
+        if (!rangesSupported || size <= 0 || parallelism == 1) {
+            if (!rangesSupported || size <= 0) {
+                System.out.println("Ranges not supported → single stream");
+            }
+            try {
+                return client.download(url, target);
+            } finally {
+                client.getPool().close();
+            }
+        }
+
+        // Pre-size the file so every worker can write at its offset right away
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(size);
+        }
+
+        try (FileChannel file = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<Long>> results = new ArrayList<>();
+                long rangeSize = (size + parallelism - 1) / parallelism;
+                for (long start = 0; start < size; start += rangeSize) {
+                    long from = start;
+                    long to = Math.min(start + rangeSize, size) - 1;
+                    results.add(workers.submit(() -> downloadRange(url, file, from, to)));
+                }
+
+                long total = 0;
+                for (Future<Long> result : results) {
+                    total += result.get();
+                }
+                return total;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Download interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Range download failed", e.getCause());
+            } finally {
+                workers.shutdownNow();
+            }
+        } finally {
+            client.getPool().close();
+        }
+    }
+
+    // Fetches [from, to] inclusive; on failure resumes from the first byte not yet written
+    private long downloadRange(String url, FileChannel file, long from, long to) throws IOException {
+        byte[] chunk = new byte[64 * 1024];
+        ByteBuffer view = ByteBuffer.wrap(chunk);
+        long position = from;
+        int attempt = 0;
+
+        while (true) {
+            try (HttpStreamingResponse response = client.stream("GET", url,
+                    Map.of("Range", "bytes=" + position + "-" + to))) {
+                if (response.getStatusCode() != 206) {
+                    throw new IOException("Expected 206 for range " + position + "-" + to
+                            + ", got " + response.getStatusCode());
+                }
+                InputStream body = response.body();
+                int n;
+                while ((n = body.read(chunk, 0, chunk.length)) != -1) {
+                    view.clear().limit(n);
+                    while (view.hasRemaining()) {
+                        position += file.write(view, position); // positional write, no shared file pointer
+                    }
+                }
+                if (position != to + 1) {
+                    throw new IOException("Range " + from + "-" + to + " ended early at " + position);
+                }
+                return to - from + 1;
+            } catch (IOException e) {
+                if (++attempt > maxRetries) {
+                    throw e;
+                }
+                retries.incrementAndGet();
+                // position already points at the first missing byte → only the rest is requested again
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package networkingIO;
+
+/*
+ * What MicroserviceClient needs from a transport: send a request, get its response later.
+ * RpcClient does it over sockets (TCP or Unix), SharedMemoryRpc.Client over mapped ring buffers.
+ */
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+public interface RpcChannel extends Closeable {
+    CompletableFuture<byte[]> call(byte[] request);
+}
@@ -0,0 +1,130 @@
+package networkingIO;
+
+/*
+ * Multiplexed RPC over a few long-lived connections.
+
+    Per-call sockets (MicroserviceClient.callUserServicePerConnection):
+      call 1: connect → stream headers → request → response → close
+      call 2: connect → stream headers → request → response → close    ← handshake + headers every time
+
+    Multiplexed:
+      connect once
+      call 1 ─┐                        ┌─→ future 1 completes
+      call 2 ─┼─→ [id|frame][id|frame] ┼─→ future 3 completes   (any order, matched by id)
+      call 3 ─┘                        └─→ future 2 completes
+
+    Callers never wait for each other: they write a frame and get a CompletableFuture.
+    One reader thread per connection completes the futures as responses arrive.
+ */
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RpcClient implements RpcChannel {
+    private final RpcConnection[] connections;
+    private final AtomicLong nextRequestId = new AtomicLong();
+    private final AtomicInteger nextConnection = new AtomicInteger();
+    private final long timeoutMillis;
+
+    // address is a TCP or Unix domain socket address; see Transport
+    public RpcClient(SocketAddress address, int connectionCount, long timeoutMillis) throws IOException {
+        this.timeoutMillis = timeoutMillis;
+        this.connections = new RpcConnection[connectionCount];
+        Transport transport = Transport.of(address);
+        for (int i = 0; i < connectionCount; i++) {
+            connections[i] = new RpcConnection(transport.connect(address), i);
+            connections[i].start();
+        }
+    }
+
+    @Override
+    public CompletableFuture<byte[]> call(byte[] request) {
+        RpcConnection connection = connections[Math.floorMod(nextConnection.getAndIncrement(), connections.length)];
+        return connection.send(nextRequestId.incrementAndGet(), request)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int inFlight() {
+        int total = 0;
+        for (RpcConnection connection : connections) {
+            total += connection.pending.size();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (RpcConnection connection : connections) {
+            connection.channel.close(); // reader thread sees the close and fails what is still pending
+        }
+    }
+
+    // ============ ONE CONNECTION: shared writer + dedicated reader ============
+    private static class RpcConnection {
+        private final SocketChannel channel;
+        private final Map<Long, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+        private final ByteBuffer header = ByteBuffer.allocate(RpcFrame.HEADER_SIZE);
+
+        private final Thread reader;
+
+        RpcConnection(SocketChannel channel, int index) {
+            this.channel = channel;
+            this.reader = new Thread(this::readLoop, "rpc-reader-" + index);
+            reader.setDaemon(true);
+        }
+
+        // Separate from the constructor, so the reader never sees a half-built connection
+        void start() {
+            reader.start();
+        }
+
+        CompletableFuture<byte[]> send(long requestId, byte[] request) {
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            pending.put(requestId, future);
+            future.whenComplete((response, failure) -> pending.remove(requestId)); // also cleans up timeouts
+
+            try {
+                synchronized (header) {
+                    RpcFrame.write(channel, header, requestId, request);
+                }
+            } catch (IOException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        private void readLoop() {
+            IOException failure = new IOException("Connection closed");
+            try {
+                RpcFrame.Reader reader = new RpcFrame.Reader(channel);
+                while (reader.next()) {
+                    long id = reader.requestId();
+                    boolean error = RpcFrame.isError(id);
+                    CompletableFuture<byte[]> future = pending.remove(error ? RpcFrame.errorId(id) : id);
+                    if (future == null) {
+                        continue; // timed out already
+                    }
+                    if (error) {
+                        future.completeExceptionally(RpcFrame.remoteFailure(reader.payload()));
+                    } else {
+                        future.complete(reader.payload());
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            // Nobody is going to answer the rest
+            for (CompletableFuture<byte[]> future : pending.values()) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+}
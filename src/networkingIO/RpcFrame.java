@@ -0,0 +1,123 @@
+package networkingIO;
+
+/*
+ * Binary frame used by RpcClient / RpcServer:
+
+    ┌──────────────┬────────────────┬──────────────────┐
+    │ length (int) │ requestId (long)│ payload (bytes)  │
+    └──────────────┴────────────────┴──────────────────┘
+      length = 8 + payload bytes
+
+    The requestId is what makes multiplexing work: responses may come back in any
+    order and the client matches each one to its waiting call by id.
+    Ids start at 1; a failed call is answered under ~requestId (negative) with the error message
+    as payload, so the caller fails right away instead of waiting for its timeout.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+final class RpcFrame {
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    static final int MAX_PAYLOAD = 16 * 1024 * 1024;
+
+    private RpcFrame() {
+    }
+
+    // header is a reusable HEADER_SIZE buffer owned by the caller; the caller serializes writers
+    static void write(GatheringByteChannel channel, ByteBuffer header, long requestId, byte[] payload)
+            throws IOException {
+        header.clear();
+        header.putInt(Long.BYTES + payload.length).putLong(requestId).flip();
+        ByteBuffer[] frame = {header, ByteBuffer.wrap(payload)};
+        while (frame[0].hasRemaining() || frame[1].hasRemaining()) { // an empty payload still sends its header
+            channel.write(frame); // gathering write: header + payload in one syscall
+        }
+    }
+
+    static long errorId(long requestId) {
+        return ~requestId;
+    }
+
+    static boolean isError(long id) {
+        return id < 0;
+    }
+
+    static byte[] errorPayload(Throwable failure) {
+        return String.valueOf(failure).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static IOException remoteFailure(byte[] payload) {
+        return new IOException("Remote handler failed: " + new String(payload, StandardCharsets.UTF_8));
+    }
+
+    // Buffered reader: one read() syscall usually brings in several frames
+    static class Reader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private long requestId;
+        private byte[] payload;
+
+        Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip(); // start empty, in read mode
+        }
+
+        // Blocks until the next frame is in; false on a clean end of stream
+        boolean next() throws IOException {
+            if (!fill(HEADER_SIZE)) {
+                return false;
+            }
+            int length = buffer.getInt(buffer.position());
+            if (length < Long.BYTES || length - Long.BYTES > MAX_PAYLOAD) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            if (!fill(Integer.BYTES + length)) {
+                throw new EOFException("Connection closed in the middle of a frame");
+            }
+            buffer.getInt();
+            requestId = buffer.getLong();
+            payload = new byte[length - Long.BYTES];
+            buffer.get(payload);
+            return true;
+        }
+
+        long requestId() {
+            return requestId;
+        }
+
+        byte[] payload() {
+            return payload;
+        }
+
+        // Makes sure at least n bytes are buffered
+        private boolean fill(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return true;
+            }
+            if (n > buffer.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(n);
+                bigger.put(buffer);
+                buffer = bigger;
+            } else {
+                buffer.compact();
+            }
+            // buffer is now in write mode
+            while (buffer.position() < n) {
+                if (channel.read(buffer) == -1) {
+                    buffer.flip();
+                    if (buffer.hasRemaining()) {
+                        throw new EOFException("Connection closed in the middle of a frame");
+                    }
+                    return false;
+                }
+            }
+            buffer.flip();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package networkingIO;
+
+/*
+ * Server side of RpcClient: reads frames, runs the handler, writes the response
+ * with the same requestId. Requests on one connection are handled concurrently,
+ * so a slow call does not hold up the fast ones behind it (no head-of-line blocking).
+ * A handler that throws is answered with an error frame (see RpcFrame).
+ * Listens on TCP or on a Unix domain socket, depending on the address (see Transport).
+ */
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+public class RpcServer {
+    private final SocketAddress address;
+    private final Transport transport;
+    private final Function<byte[], byte[]> handler;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile ServerSocketChannel serverChannel;
+
+    public RpcServer(SocketAddress address, Function<byte[], byte[]> handler) {
+        this.address = address;
+        this.transport = Transport.of(address);
+        this.handler = handler;
+    }
+
+    public void start() throws IOException {
+        serverChannel = transport.listen(address, 1024);
+
+        Thread acceptor = new Thread(() -> {
+            while (serverChannel.isOpen()) {
+                try {
+                    SocketChannel channel = serverChannel.accept();
+                    workers.submit(() -> serve(channel));
+                } catch (IOException e) {
+                    // closed by stop()
+                }
+            }
+        }, "rpc-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() throws IOException {
+        serverChannel.close();
+        transport.unbind(address);
+        workers.shutdownNow();
+    }
+
+    private void serve(SocketChannel channel) {
+        ByteBuffer header = ByteBuffer.allocate(RpcFrame.HEADER_SIZE);
+        try (channel) {
+            transport.configure(channel);
+            RpcFrame.Reader reader = new RpcFrame.Reader(channel);
+            while (reader.next()) {
+                long requestId = reader.requestId();
+                byte[] request = reader.payload();
+
+                workers.submit(() -> {
+                    long responseId = requestId;
+                    byte[] response;
+                    try {
+                        response = handler.apply(request);
+                    } catch (RuntimeException e) {
+                        responseId = RpcFrame.errorId(requestId);
+                        response = RpcFrame.errorPayload(e);
+                    }
+                    try {
+                        synchronized (header) {
+                            RpcFrame.write(channel, header, responseId, response);
+                        }
+                    } catch (IOException e) {
+                        // client went away, the reader loop will notice too
+                    }
+                });
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+}
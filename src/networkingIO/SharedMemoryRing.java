@@ -0,0 +1,166 @@
+package networkingIO;
+
+/*
+ * Ring buffer of RPC records in a memory-mapped file: the fastest hop between two JVMs on one host.
+
+    File layout (every process maps the same file, so the same physical pages):
+
+    ┌──────────────────┬──────────────────┬──────────────────────────────────────────┐
+    │ tail (long)  pad │ head (long)  pad │ data: capacity bytes, power of two        │
+    └──────────────────┴──────────────────┴──────────────────────────────────────────┘
+      0                  128                256
+      producers claim    consumer frees
+
+    Counters grow forever; position in the data area = counter & (capacity - 1).
+    tail and head sit 128 bytes apart so producers and the consumer never write the same
+    cache line (and the adjacent-line prefetcher does not pair them up either).
+
+    Record (8-byte aligned):  [int length][long requestId][payload]    same fields as RpcFrame
+      length > 0  record is published, length = 12 + payload bytes
+      length < 0  padding up to the end of the data area, skip -length bytes
+      length = 0  not written yet
+
+    offer (any thread, any process):
+      1. CAS tail forward by the record size → the space is ours (a lone producer never
+         retries, so single-producer use costs one uncontended CAS)
+      2. write requestId + payload with plain stores
+      3. setRelease(length): publishes the record; everything in 2. is visible before it
+    poll (one consumer):
+      getAcquire(length) → copy the record → zero its bytes → setRelease(head)
+      Zeroing matters: a later record may put its length slot where old payload bytes are.
+
+    No syscalls on either side, and no locks. Waiting for data is up to the caller
+    (see SharedMemoryRpc.IdleStrategy).
+ */
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class SharedMemoryRing {
+    private static final int CACHE_LINE = 64;
+    private static final int TAIL_OFFSET = 0;
+    private static final int HEAD_OFFSET = 2 * CACHE_LINE;
+    private static final int DATA_OFFSET = 4 * CACHE_LINE;
+    private static final int RECORD_HEADER = Integer.BYTES + Long.BYTES;
+    private static final int ALIGNMENT = Long.BYTES;
+
+    // Atomic access to the mapped bytes; offsets must be aligned to the value size
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(long requestId, byte[] payload);
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private long head; // consumer's own copy of the head counter
+
+    private SharedMemoryRing(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.buffer.order(ByteOrder.nativeOrder());
+        this.capacity = buffer.capacity() - DATA_OFFSET;
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.head = (long) LONGS.getAcquire(buffer, HEAD_OFFSET);
+    }
+
+    // New, empty ring (an existing file is wiped)
+    public static SharedMemoryRing create(Path file, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Mapping past the end grows the file; the new pages read as zeros
+            return new SharedMemoryRing(channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA_OFFSET + capacity));
+        }
+    }
+
+    // Ring created by the other side; the mapping stays valid after the channel is closed
+    public static SharedMemoryRing open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new SharedMemoryRing(channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    // A record may take at most half the ring, so a producer never waits for space that cannot come
+    public boolean fits(int payloadLength) {
+        return align(RECORD_HEADER + payloadLength) <= capacity / 2;
+    }
+
+    // Any thread. false = ring full, the consumer is behind; the caller decides whether to wait
+    public boolean offer(long requestId, byte[] payload) {
+        int length = RECORD_HEADER + payload.length;
+        int span = align(length);
+        if (!fits(payload.length)) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit the ring");
+        }
+
+        while (true) {
+            long tail = (long) LONGS.getVolatile(buffer, TAIL_OFFSET);
+            int index = (int) (tail & mask);
+            int padding = span > capacity - index ? capacity - index : 0; // records never wrap
+            long head = (long) LONGS.getAcquire(buffer, HEAD_OFFSET);
+            if (tail + padding + span - head > capacity) {
+                return false;
+            }
+            if (!LONGS.compareAndSet(buffer, TAIL_OFFSET, tail, tail + padding + span)) {
+                continue; // another producer claimed first
+            }
+
+            if (padding > 0) {
+                INTS.setRelease(buffer, DATA_OFFSET + index, -padding);
+                index = 0;
+            }
+            int at = DATA_OFFSET + index;
+            buffer.putLong(at + Integer.BYTES, requestId);
+            buffer.put(at + RECORD_HEADER, payload);
+            INTS.setRelease(buffer, at, length); // publish
+            return true;
+        }
+    }
+
+    // Consumer thread only. Hands over up to `limit` records, returns how many.
+    public int poll(RecordHandler handler, int limit) {
+        int records = 0;
+        while (records < limit) {
+            int at = DATA_OFFSET + (int) (head & mask);
+            int length = (int) INTS.getAcquire(buffer, at);
+            if (length == 0) {
+                break; // empty, or the next record is claimed but not published yet
+            }
+
+            int span = length < 0 ? -length : align(length);
+            long requestId = 0;
+            byte[] payload = null;
+            if (length > 0) {
+                requestId = buffer.getLong(at + Integer.BYTES);
+                payload = new byte[length - RECORD_HEADER];
+                buffer.get(at + RECORD_HEADER, payload);
+            }
+            for (int i = 0; i < span; i += ALIGNMENT) {
+                buffer.putLong(at + i, 0L);
+            }
+            head += span;
+            LONGS.setRelease(buffer, HEAD_OFFSET, head); // the space is free again
+
+            if (payload != null) {
+                handler.onRecord(requestId, payload);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -0,0 +1,213 @@
+package networkingIO;
+
+/*
+ * RPC over two SharedMemoryRing files in one directory ("shm:/dev/shm/user-service"):
+
+    callers (any thread) ──offer──→ requests.ring  ──poll──→ server thread ─┐
+                                     (multi-producer)                      handler
+    futures ←──complete── reader ←─poll── responses.ring ←──offer──────────┘
+                                     (single producer)
+
+    Client and server can be two JVMs: they only share the mapped files. Put the directory
+    on tmpfs (/dev/shm) so the pages never get written back to a disk.
+
+    A call never enters the kernel. The price is the waiting side: nobody can be woken up
+    across processes, so server and reader poll. IdleStrategy spins first (lowest latency,
+    burns a core), then yields, then parks briefly (slower to notice, costs almost nothing).
+    Handlers run on the server thread one after the other, so they must be quick.
+    A handler that throws is answered with an error record, like RpcServer's error frame.
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+public final class SharedMemoryRpc {
+    private static final String REQUESTS = "requests.ring";
+    private static final String RESPONSES = "responses.ring";
+    private static final int POLL_LIMIT = 64;
+
+    private SharedMemoryRpc() {
+    }
+
+    // Spin → yield → park. Call idle(0) after an empty poll, idle(n) after work to reset.
+    public static class IdleStrategy {
+        private final int maxSpins;
+        private final int maxYields;
+        private final long parkNanos;
+        private int idleRounds;
+
+        public IdleStrategy(int maxSpins, int maxYields, long parkMicros) {
+            this.maxSpins = maxSpins;
+            this.maxYields = maxYields;
+            this.parkNanos = parkMicros * 1_000;
+        }
+
+        public void idle(int workDone) {
+            if (workDone > 0) {
+                idleRounds = 0;
+            } else if (idleRounds < maxSpins) {
+                idleRounds++;
+                Thread.onSpinWait();
+            } else if (idleRounds < maxSpins + maxYields) {
+                idleRounds++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(parkNanos); // timed: the other process cannot unpark us
+            }
+        }
+    }
+
+    // Spinning only pays off when the other side runs on another core at the same time
+    private static IdleStrategy defaultIdle() {
+        return new IdleStrategy(Runtime.getRuntime().availableProcessors() > 1 ? 10_000 : 0, 100, 50);
+    }
+
+    // ============ SERVER: creates the rings, one thread polls and answers ============
+    public static class Server {
+        private final Path directory;
+        private final SharedMemoryRing requests;
+        private final SharedMemoryRing responses;
+        private final Function<byte[], byte[]> handler;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        public Server(Path directory, int ringCapacity, Function<byte[], byte[]> handler) throws IOException {
+            this.directory = directory;
+            this.handler = handler;
+            Files.createDirectories(directory);
+            this.requests = SharedMemoryRing.create(directory.resolve(REQUESTS), ringCapacity);
+            this.responses = SharedMemoryRing.create(directory.resolve(RESPONSES), ringCapacity);
+            this.thread = new Thread(this::serve, "shm-rpc-server");
+            thread.setDaemon(true);
+        }
+
+        public void start() {
+            thread.start();
+        }
+
+        public void stop() throws IOException, InterruptedException {
+            running = false;
+            thread.join();
+            Files.deleteIfExists(directory.resolve(REQUESTS));
+            Files.deleteIfExists(directory.resolve(RESPONSES));
+        }
+
+        private void serve() {
+            IdleStrategy idle = defaultIdle();
+            IdleStrategy full = defaultIdle();
+            while (running) {
+                idle.idle(requests.poll((requestId, request) -> {
+                    long responseId = requestId;
+                    byte[] response;
+                    try {
+                        response = handler.apply(request);
+                        if (!responses.fits(response.length)) {
+                            throw new IllegalArgumentException("Response of " + response.length
+                                    + " bytes does not fit the ring");
+                        }
+                    } catch (RuntimeException e) {
+                        // One bad request must not end the only server thread; the caller fails right away
+                        responseId = RpcFrame.errorId(requestId);
+                        response = RpcFrame.errorPayload(e);
+                    }
+                    while (!responses.offer(responseId, response) && running) {
+                        full.idle(0); // the client's reader is behind
+                    }
+                    full.idle(1);
+                }, POLL_LIMIT));
+            }
+        }
+    }
+
+    // ============ CLIENT: opens the rings, one reader thread completes the futures ============
+    public static class Client implements RpcChannel {
+        private final SharedMemoryRing requests;
+        private final SharedMemoryRing responses;
+        private final long timeoutMillis;
+        private final Map<Long, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+        private final AtomicLong nextRequestId = new AtomicLong();
+        private final Thread reader;
+        private volatile boolean running = true;
+
+        private Client(Path directory, long timeoutMillis) throws IOException {
+            this.requests = SharedMemoryRing.open(directory.resolve(REQUESTS));
+            this.responses = SharedMemoryRing.open(directory.resolve(RESPONSES));
+            this.timeoutMillis = timeoutMillis;
+            this.reader = new Thread(this::readLoop, "shm-rpc-reader");
+            reader.setDaemon(true);
+        }
+
+        // Maps the rings a running Server created; the reader starts once the client is fully constructed
+        public static Client open(Path directory, long timeoutMillis) throws IOException {
+            Client client = new Client(directory, timeoutMillis);
+            client.reader.start();
+            return client;
+        }
+
+        @Override
+        public CompletableFuture<byte[]> call(byte[] request) {
+            if (!requests.fits(request.length)) {
+                return CompletableFuture.failedFuture(
+                        new IOException("Request of " + request.length + " bytes does not fit the ring"));
+            }
+            long requestId = nextRequestId.incrementAndGet();
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            pending.put(requestId, future);
+            future.whenComplete((response, failure) -> pending.remove(requestId)); // also cleans up timeouts
+
+            IdleStrategy full = null;
+            while (!requests.offer(requestId, request)) {
+                if (!running) {
+                    future.completeExceptionally(new IOException("Client closed"));
+                    return future;
+                }
+                if (full == null) {
+                    full = defaultIdle();
+                }
+                full.idle(0); // ring full: the server is behind
+            }
+            return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void readLoop() {
+            IdleStrategy idle = defaultIdle();
+            while (running) {
+                idle.idle(responses.poll((id, response) -> {
+                    boolean error = RpcFrame.isError(id); // same error convention as RpcFrame
+                    CompletableFuture<byte[]> future = pending.remove(error ? RpcFrame.errorId(id) : id);
+                    if (future == null) {
+                        return; // timed out already
+                    }
+                    if (error) {
+                        future.completeExceptionally(RpcFrame.remoteFailure(response));
+                    } else {
+                        future.complete(response);
+                    }
+                }, POLL_LIMIT));
+            }
+            // Nobody is going to answer the rest
+            IOException closed = new IOException("Client closed");
+            for (CompletableFuture<byte[]> future : pending.values()) {
+                future.completeExceptionally(closed);
+            }
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package nonBlockingIO;
+
+/*
+ * Echo server on NIO.2 asynchronous channels (completion-style I/O).
+
+    Readiness (Selector, NonBlockingServer):
+      "socket is READY to read" → you call read() yourself → process → write()
+
+    Completion (AsynchronousSocketChannel, this class):
+      "please read into this buffer" → ... → "DONE, 42 bytes are in your buffer"
+      The JDK runs the callback (CompletionHandler) on a thread of the channel group.
+
+    Each connection is a chain of callbacks, no thread ever waits on a socket:
+
+      accept ──→ read ──→ decode + echo into write buffer ──→ write ──→ read ──→ ...
+                  ↑                                              │
+                  └───────── (partial write: write again) ←──────┘
+
+    Only one read OR one write is outstanding per connection at any time, so the
+    session's buffers are never touched by two threads at once. Buffers are allocated
+    once per connection and recycled when it closes.
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncEchoServer {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_RECYCLED_BUFFERS = 1024;
+    private static final byte[] NO_PREFIX = new byte[0];
+
+    private final int threads;
+    private final ChannelPipeline pipeline;
+    private final Queue<ByteBuffer> recycledBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private AsynchronousChannelGroup group;
+    private AsynchronousServerSocketChannel serverChannel;
+    private volatile boolean verbose = true;
+
+    public AsyncEchoServer(int threads) {
+        this.threads = threads;
+        this.pipeline = new ChannelPipeline(new ChannelPipeline.LineDecoder(BUFFER_SIZE), new ChannelPipeline.LineEncoder())
+                .addLast(new ChannelPipeline.EchoHandler());
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    // Blocks until stop() is called, like NonBlockingServer.start()
+    public void start(int port) throws IOException, InterruptedException {
+        // The group's threads run every completion handler
+        group = AsynchronousChannelGroup.withFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "async-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        serverChannel = AsynchronousServerSocketChannel.open(group).bind(new InetSocketAddress(port), 1024);
+        System.out.println("✅ Async server listening on port " + port + " (" + threads + " completion threads)");
+
+        serverChannel.accept(null, new CompletionHandler<AsynchronousSocketChannel, Void>() {
+            @Override
+            public void completed(AsynchronousSocketChannel channel, Void attachment) {
+                serverChannel.accept(null, this); // ask for the next connection right away
+                connections.incrementAndGet();
+                if (verbose) {
+                    System.out.println("✅ New client connected");
+                }
+                new Session(channel).read();
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                if (serverChannel.isOpen()) {
+                    System.err.println("Accept failed: " + exc.getMessage());
+                    serverChannel.accept(null, this);
+                }
+            }
+        });
+
+        group.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    public void stop() throws IOException {
+        serverChannel.close();
+        group.shutdownNow();
+    }
+
+    private ByteBuffer takeBuffer() {
+        ByteBuffer buffer = recycledBuffers.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private void recycle(ByteBuffer buffer) {
+        if (buffer.capacity() == BUFFER_SIZE && recycledBuffers.size() < MAX_RECYCLED_BUFFERS) {
+            recycledBuffers.add(buffer);
+        }
+    }
+
+    // ============ ONE CONNECTION ============
+    private class Session implements ChannelPipeline.Context {
+        private final AsynchronousSocketChannel channel;
+        private ByteBuffer readBuffer = takeBuffer();
+        private ByteBuffer writeBuffer = takeBuffer();
+        private boolean closed;
+
+        Session(AsynchronousSocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() {
+            channel.read(readBuffer, this, READ_COMPLETED);
+        }
+
+        // Runs on a group thread with the bytes already in readBuffer
+        void onRead(int bytesRead) {
+            if (bytesRead == -1) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            try {
+                ByteBuffer frame;
+                while ((frame = pipeline.decoder().decode(readBuffer)) != null) {
+                    pipeline.fireFrame(this, frame); // handlers write into writeBuffer
+                }
+            } catch (IOException e) {
+                System.err.println("Error handling client: " + e.getMessage());
+                close();
+                return;
+            } catch (RuntimeException e) {
+                // A decoder or handler bug costs its own session, not a group thread's callback chain
+                System.err.println("Pipeline failed on a client: " + e);
+                close();
+                return;
+            }
+            readBuffer.compact();
+
+            if (writeBuffer.position() > 0) {
+                writeBuffer.flip();
+                channel.write(writeBuffer, this, WRITE_COMPLETED);
+            } else {
+                read(); // only a partial line so far
+            }
+        }
+
+        void onWrite() {
+            if (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer, this, WRITE_COMPLETED); // partial write, continue
+                return;
+            }
+            if (writeBuffer.capacity() != BUFFER_SIZE) {
+                writeBuffer = takeBuffer(); // a burst grew it: don't keep the big one for the whole session
+            } else {
+                writeBuffer.clear();
+            }
+            read();
+        }
+
+        @Override
+        public void write(ByteBuffer payload) {
+            write(NO_PREFIX, payload);
+        }
+
+        @Override
+        public void write(byte[] prefix, ByteBuffer payload) {
+            ChannelPipeline.Encoder encoder = pipeline.encoder();
+            int length = prefix.length + payload.remaining();
+            ensureWritable(encoder.overhead() + length);
+            encoder.writeHeader(length, writeBuffer);
+            writeBuffer.put(prefix).put(payload);
+            encoder.writeTrailer(writeBuffer);
+        }
+
+        // Many pipelined lines in one read can produce more output than one buffer holds
+        private void ensureWritable(int bytes) {
+            if (writeBuffer.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(writeBuffer.capacity() * 2,
+                        writeBuffer.position() + bytes));
+                writeBuffer.flip();
+                bigger.put(writeBuffer);
+                writeBuffer = bigger;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connections.decrementAndGet();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            recycle(readBuffer);
+            recycle(writeBuffer);
+        }
+    }
+
+    // Stateless handlers shared by all sessions (the session is the attachment), no allocation per I/O
+    private static final CompletionHandler<Integer, Session> READ_COMPLETED = new CompletionHandler<>() {
+        @Override
+        public void completed(Integer bytesRead, Session session) {
+            session.onRead(bytesRead);
+        }
+
+        @Override
+        public void failed(Throwable exc, Session session) {
+            session.close();
+        }
+    };
+
+    private static final CompletionHandler<Integer, Session> WRITE_COMPLETED = new CompletionHandler<>() {
+        @Override
+        public void completed(Integer bytesWritten, Session session) {
+            session.onWrite();
+        }
+
+        @Override
+        public void failed(Throwable exc, Session session) {
+            session.close();
+        }
+    };
+}
@@ -0,0 +1,158 @@
+package nonBlockingIO;
+
+/*
+ * Pool of direct ByteBuffers in size classes.
+
+    Why pool?
+      ByteBuffer.allocate(1024) per read event = garbage on every message → GC churn.
+      allocateDirect() avoids the extra copy the JDK makes for heap buffers on socket I/O,
+      but direct memory is expensive to allocate and free → allocate once, reuse forever.
+
+    Size classes:  [512] [1K] [4K] [16K] [64K]
+      lease(700)  → 1K buffer
+      release(b)  → back onto the 1K free list
+
+    High-water mark: once the pool owns maxDirectBytes of direct memory it stops
+    allocating direct buffers and hands out plain heap buffers that are never pooled,
+    so memory stays bounded no matter how many connections there are.
+
+    NOT thread safe: every event loop owns its own pool (like Netty's per-thread cache),
+    so leasing never takes a lock. Counters are volatile so other threads can monitor them.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class BufferPool {
+
+    private static final int[] SIZE_CLASSES = {512, 1024, 4 * 1024, 16 * 1024, 64 * 1024};
+
+    private final long maxDirectBytes;
+    private final ArrayDeque<Slot>[] freeLists;
+
+    // Every direct buffer the pool ever allocated → its slot. Only grows when a buffer is allocated,
+    // so leasing and releasing allocate nothing; used for leak detection and release validation.
+    private final Map<ByteBuffer, Slot> owned = new IdentityHashMap<>();
+
+    // Occupancy counters
+    private volatile long directBytes;        // direct memory owned by the pool (leased + free)
+    private volatile int pooledBuffers;       // sitting on free lists
+    private volatile int leasedBuffers;
+    private volatile int peakLeased;
+    private volatile long leases;
+    private volatile long hits;               // leases served from a free list
+    private volatile long overflowAllocations; // heap fallbacks after the high-water mark
+    private volatile long invalidReleases;    // double release or foreign buffer
+
+    private static final class Slot {
+        final ByteBuffer buffer;
+        boolean leased;
+        long leasedAt;
+
+        Slot(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    public BufferPool(long maxDirectBytes) {
+        this.maxDirectBytes = maxDirectBytes;
+        this.freeLists = newFreeLists(SIZE_CLASSES.length);
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new ArrayDeque<>();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Slot>[] newFreeLists(int count) {
+        return (ArrayDeque<Slot>[]) new ArrayDeque<?>[count];
+    }
+
+    // Returns a cleared buffer with at least minCapacity bytes
+    public ByteBuffer lease(int minCapacity) {
+        leases++;
+        int sizeClass = sizeClassFor(minCapacity);
+        Slot slot = null;
+
+        if (sizeClass >= 0) {
+            slot = freeLists[sizeClass].pollFirst(); // LIFO: most recently used = still in CPU cache
+            if (slot != null) {
+                hits++;
+                pooledBuffers--;
+            } else if (directBytes + SIZE_CLASSES[sizeClass] <= maxDirectBytes) {
+                slot = new Slot(ByteBuffer.allocateDirect(SIZE_CLASSES[sizeClass]));
+                owned.put(slot.buffer, slot);
+                directBytes += slot.buffer.capacity();
+            }
+        }
+
+        if (slot == null) {
+            // Over the high-water mark (or bigger than the largest class): unpooled heap buffer
+            overflowAllocations++;
+            return ByteBuffer.allocate(minCapacity);
+        }
+
+        slot.leased = true;
+        slot.leasedAt = System.nanoTime();
+        leasedBuffers++;
+        if (leasedBuffers > peakLeased) {
+            peakLeased = leasedBuffers;
+        }
+        return slot.buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            return; // overflow buffer, let the GC have it
+        }
+        Slot slot = owned.get(buffer);
+        if (slot == null || !slot.leased) {
+            invalidReleases++;
+            return;
+        }
+        slot.leased = false;
+        leasedBuffers--;
+        freeLists[sizeClassFor(buffer.capacity())].addFirst(slot);
+        pooledBuffers++;
+    }
+
+    // Leases held longer than maxAgeMillis are probably never coming back
+    public int leakSuspects(long maxAgeMillis) {
+        long cutoff = System.nanoTime() - maxAgeMillis * 1_000_000;
+        int suspects = 0;
+        for (Slot slot : owned.values()) {
+            if (slot.leased && slot.leasedAt < cutoff) {
+                suspects++;
+            }
+        }
+        return suspects;
+    }
+
+    private static int sizeClassFor(int capacity) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (capacity <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getLeased() { return leasedBuffers; }
+    public int getPeakLeased() { return peakLeased; }
+    public int getPooledBuffers() { return pooledBuffers; }
+    public long getDirectBytes() { return directBytes; }
+    public long getMaxDirectBytes() { return maxDirectBytes; }
+    public long getLeases() { return leases; }
+    public long getHits() { return hits; }
+    public long getOverflowAllocations() { return overflowAllocations; }
+    public long getInvalidReleases() { return invalidReleases; }
+
+    @Override
+    public String toString() {
+        return "leased=" + getLeased() + " (peak " + peakLeased + "), pooled=" + pooledBuffers +
+                ", direct=" + directBytes / 1024 + "KB/" + maxDirectBytes / 1024 + "KB" +
+                ", hitRate=" + (leases == 0 ? 0 : hits * 100 / leases) + "%" +
+                ", overflow=" + overflowAllocations + ", invalidReleases=" + invalidReleases;
+    }
+}
@@ -0,0 +1,422 @@
+package nonBlockingIO;
+
+/*
+ * Netty-like handler pipeline for NonBlockingServer.
+
+    TCP is a byte STREAM, not a message stream:
+      client writes "hi\n" and "there\n"  →  server may read "hi\nth" then "ere\n"   (fragmentation)
+      client writes "a\n" "b\n" "c\n"     →  server may read "a\nb\nc\n" in one go   (coalescing)
+
+    So one read() != one message. The pipeline fixes that:
+
+      socket → accumulation buffer → Decoder → frame → Handler → Handler → ... → ctx.write()
+                                                                                     ↓
+      socket ← outbound queue ← Encoder (writes header/trailer straight into the outbound buffer)
+
+    Frames are slices of the connection's accumulation buffer (no copy), so a handler
+    must finish with a frame before it returns; copy it if it needs to keep it.
+    One pipeline instance is shared by all connections: decoders, encoders and
+    handlers must not keep per-connection state.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChannelPipeline {
+
+    // Cuts the next complete frame out of the accumulated bytes
+    public interface Decoder {
+        // Returns the frame as a slice and moves in.position() past it, or null if more bytes are needed
+        ByteBuffer decode(ByteBuffer in) throws IOException;
+    }
+
+    // Frames an outgoing payload directly inside the outbound buffer
+    public interface Encoder {
+        int overhead();
+
+        void writeHeader(int payloadLength, ByteBuffer out);
+
+        void writeTrailer(ByteBuffer out);
+    }
+
+    // One stage: returns the frame for the next stage, or null to stop the chain here
+    public interface Handler {
+        ByteBuffer onFrame(Context ctx, ByteBuffer frame) throws IOException;
+
+        // The connection is gone; drop anything kept for it
+        default void onClose(Context ctx) {
+        }
+    }
+
+    // What a handler can do with any connection, on the connection's own thread
+    public interface Context {
+        void write(ByteBuffer payload) throws IOException;
+
+        void write(byte[] prefix, ByteBuffer payload) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    /*
+     * Optional capabilities. A transport implements the ones it can support (NonBlockingServer's
+     * connections do both, AsyncEchoServer's sessions neither), and a handler that needs one asks
+     * for it with require(): on a transport without it, that connection fails with an IOException
+     * instead of a stub throwing from deep inside the handler.
+     */
+
+    // Connections driven by one event loop thread
+    public interface LoopContext extends Context {
+        // false → stop reading from the socket (TCP flow control pushes back on the client)
+        void setAutoRead(boolean autoRead);
+
+        // Runs the task on the connection's event loop; safe from any thread
+        void execute(Runnable task);
+    }
+
+    // Connections that move file bytes to and from the socket without the heap
+    public interface FileContext extends Context {
+        // Queues file bytes behind everything written so far; they go file → socket without the heap
+        void writeFile(FileRegion region) throws IOException;
+
+        // Close once everything queued has reached the socket (HTTP "Connection: close")
+        void closeWhenFlushed() throws IOException;
+
+        // The next sink.remaining() bytes from the socket go to the sink's file instead of the decoder
+        void receiveFile(FileSink sink) throws IOException;
+    }
+
+    public static <C extends Context> C require(Context ctx, Class<C> capability) throws IOException {
+        if (!capability.isInstance(ctx)) {
+            throw new IOException(ctx.getClass().getSimpleName() + " is not a " + capability.getSimpleName());
+        }
+        return capability.cast(ctx);
+    }
+
+    /*
+     * A slice of a file to send with FileChannel.transferTo() → sendfile(2) on Linux:
+     *
+     *   read() + write():  disk → page cache → heap buffer → socket buffer   (2 copies through user space)
+     *   transferTo():      disk → page cache ──────────────→ socket buffer   (kernel only)
+     *
+     * One transferTo() on a non-blocking socket sends what fits in the send buffer,
+     * so the region remembers its position and the next OP_WRITE carries on from there.
+     */
+    public static class FileRegion {
+        private final FileChannel file;
+        private final boolean ownsFile;
+        private long position;
+        private long remaining;
+
+        // ownsFile = false: the file belongs to a cache and stays open after the transfer
+        public FileRegion(FileChannel file, long position, long count, boolean ownsFile) {
+            this.file = file;
+            this.position = position;
+            this.remaining = count;
+            this.ownsFile = ownsFile;
+        }
+
+        public long transferTo(WritableByteChannel target) throws IOException {
+            long sent = file.transferTo(position, remaining, target);
+            position += sent;
+            remaining -= sent;
+            return sent;
+        }
+
+        public long remaining() {
+            return remaining;
+        }
+
+        // Sent or abandoned
+        public void release() {
+            if (ownsFile) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private final Decoder decoder;
+    private final Encoder encoder;
+    private final List<Handler> handlers = new ArrayList<>();
+
+    public ChannelPipeline(Decoder decoder, Encoder encoder) {
+        this.decoder = decoder;
+        this.encoder = encoder;
+    }
+
+    public ChannelPipeline addLast(Handler handler) {
+        handlers.add(handler);
+        return this;
+    }
+
+    public Decoder decoder() {
+        return decoder;
+    }
+
+    public Encoder encoder() {
+        return encoder;
+    }
+
+    public void fireFrame(Context ctx, ByteBuffer frame) throws IOException {
+        for (int i = 0; i < handlers.size() && frame != null; i++) {
+            frame = handlers.get(i).onFrame(ctx, frame);
+        }
+    }
+
+    public void fireClose(Context ctx) {
+        for (Handler handler : handlers) {
+            try {
+                handler.onClose(ctx);
+            } catch (RuntimeException e) {
+                System.err.println("onClose failed: " + e); // the other handlers still get to clean up
+            }
+        }
+    }
+
+    // ============ NEWLINE DELIMITED ("hello\n") ============
+    public static class LineDecoder implements Decoder {
+        private final int maxLineLength;
+
+        public LineDecoder(int maxLineLength) {
+            this.maxLineLength = maxLineLength;
+        }
+
+        @Override
+        public ByteBuffer decode(ByteBuffer in) throws IOException {
+            int start = in.position();
+            for (int i = start; i < in.limit(); i++) {
+                if (in.get(i) == '\n') {
+                    int end = i;
+                    if (end > start && in.get(end - 1) == '\r') {
+                        end--; // telnet sends \r\n
+                    }
+                    in.position(i + 1);
+                    return in.slice(start, end - start);
+                }
+            }
+            if (in.remaining() >= maxLineLength) {
+                throw new IOException("Line longer than " + maxLineLength + " bytes");
+            }
+            return null;
+        }
+    }
+
+    public static class LineEncoder implements Encoder {
+        @Override
+        public int overhead() {
+            return 1;
+        }
+
+        @Override
+        public void writeHeader(int payloadLength, ByteBuffer out) {
+        }
+
+        @Override
+        public void writeTrailer(ByteBuffer out) {
+            out.put((byte) '\n');
+        }
+    }
+
+    // ============ LENGTH PREFIXED ([int length][payload]) ============
+    public static class LengthFieldDecoder implements Decoder {
+        private final int maxFrameLength;
+
+        public LengthFieldDecoder(int maxFrameLength) {
+            this.maxFrameLength = maxFrameLength;
+        }
+
+        @Override
+        public ByteBuffer decode(ByteBuffer in) throws IOException {
+            if (in.remaining() < Integer.BYTES) {
+                return null;
+            }
+            int length = in.getInt(in.position()); // peek, don't consume yet
+            if (length < 0 || length > maxFrameLength) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            if (in.remaining() < Integer.BYTES + length) {
+                return null;
+            }
+            int start = in.position() + Integer.BYTES;
+            in.position(start + length);
+            return in.slice(start, length);
+        }
+    }
+
+    public static class LengthFieldEncoder implements Encoder {
+        @Override
+        public int overhead() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void writeHeader(int payloadLength, ByteBuffer out) {
+            out.putInt(payloadLength);
+        }
+
+        @Override
+        public void writeTrailer(ByteBuffer out) {
+        }
+    }
+
+    /*
+     * Inbound counterpart of FileRegion: the next `count` bytes of the stream are written
+     * to a file with FileChannel.transferFrom(socket), never into a heap buffer the handler sees:
+     *
+     *   [header frame] → handler → ctx.receiveFile(sink) → OP_READ → transferFrom ... → completed()
+     *
+     * Bytes that arrived together with the header are already in the accumulation buffer;
+     * write(buffered) takes those first. Each readiness event moves at most MAX_CHUNK bytes,
+     * so one fast upload cannot starve the other connections of the loop.
+     *
+     * Linux has no socket → file sendfile: the JDK reads into an internal direct buffer and
+     * writes that out (splice is not used), so this saves the heap copy, not the kernel copy.
+     * A non-null copyBuffer uses plain read() + write() through it instead (for comparison).
+     */
+    public abstract static class FileSink {
+        private static final long MAX_CHUNK = 1024 * 1024;
+
+        private final FileChannel file;
+        private final ByteBuffer copyBuffer;
+        private long position;
+        private long remaining;
+
+        protected FileSink(FileChannel file, long position, long count, ByteBuffer copyBuffer) {
+            this.file = file;
+            this.position = position;
+            this.remaining = count;
+            this.copyBuffer = copyBuffer;
+        }
+
+        public void write(ByteBuffer buffered) throws IOException {
+            int n = (int) Math.min(buffered.remaining(), remaining);
+            ByteBuffer part = buffered.slice(buffered.position(), n);
+            while (part.hasRemaining()) {
+                position += file.write(part, position);
+            }
+            buffered.position(buffered.position() + n);
+            remaining -= n;
+        }
+
+        // Returns the bytes moved, or -1 if the stream ended first
+        public long receive(ReadableByteChannel source) throws IOException {
+            long moved = copyBuffer == null ? transfer(source) : copy(source);
+            if (moved == 0) {
+                // transferFrom returns 0 both for "nothing yet" and at end of stream; a read can tell them apart
+                ByteBuffer probe = ByteBuffer.allocate(1);
+                if (source.read(probe) == -1) {
+                    return -1;
+                }
+                probe.flip();
+                write(probe);
+                moved = probe.position();
+            }
+            return moved;
+        }
+
+        private long transfer(ReadableByteChannel source) throws IOException {
+            long moved = file.transferFrom(source, position, Math.min(remaining, MAX_CHUNK));
+            position += moved;
+            remaining -= moved;
+            return moved;
+        }
+
+        private long copy(ReadableByteChannel source) throws IOException {
+            long moved = 0;
+            while (moved < MAX_CHUNK && remaining > 0) {
+                copyBuffer.clear().limit((int) Math.min(copyBuffer.capacity(), remaining));
+                int read = source.read(copyBuffer);
+                if (read <= 0) {
+                    break;
+                }
+                copyBuffer.flip();
+                write(copyBuffer);
+                moved += read;
+            }
+            return moved;
+        }
+
+        public long remaining() {
+            return remaining;
+        }
+
+        public FileChannel file() {
+            return file;
+        }
+
+        // All bytes are in the file (not necessarily on disk: no fsync yet). Runs on the event loop.
+        protected abstract void completed(Context ctx) throws IOException;
+
+        // The connection closed before the last byte
+        protected void failed() {
+        }
+    }
+
+    // ============ HTTP/1.1 REQUEST HEAD ("GET / HTTP/1.1\r\n...\r\n\r\n") ============
+    // The frame is the request line + headers; request bodies are not supported (GET / HEAD only)
+    public static class HttpRequestDecoder implements Decoder {
+        private final int maxHeaderLength;
+
+        public HttpRequestDecoder(int maxHeaderLength) {
+            this.maxHeaderLength = maxHeaderLength;
+        }
+
+        @Override
+        public ByteBuffer decode(ByteBuffer in) throws IOException {
+            int start = in.position();
+            for (int i = start + 3; i < in.limit(); i++) {
+                if (in.get(i) == '\n' && in.get(i - 1) == '\r' && in.get(i - 2) == '\n' && in.get(i - 3) == '\r') {
+                    in.position(i + 1);
+                    return in.slice(start, i - 3 - start);
+                }
+            }
+            if (in.remaining() >= maxHeaderLength) {
+                throw new IOException("Request head longer than " + maxHeaderLength + " bytes");
+            }
+            return null;
+        }
+    }
+
+    // No framing at all: the handler writes complete protocol messages itself
+    public static class RawEncoder implements Encoder {
+        @Override
+        public int overhead() {
+            return 0;
+        }
+
+        @Override
+        public void writeHeader(int payloadLength, ByteBuffer out) {
+        }
+
+        @Override
+        public void writeTrailer(ByteBuffer out) {
+        }
+    }
+
+    // ============ HANDLERS ============
+    public static class LoggingHandler implements Handler {
+        @Override
+        public ByteBuffer onFrame(Context ctx, ByteBuffer frame) {
+            System.out.println("⬅\uFE0F Received: " + StandardCharsets.UTF_8.decode(frame.duplicate()));
+            return frame;
+        }
+    }
+
+    public static class EchoHandler implements Handler {
+        private static final byte[] ECHO_PREFIX = "Echo: ".getBytes(StandardCharsets.UTF_8);
+
+        @Override
+        public ByteBuffer onFrame(Context ctx, ByteBuffer frame) throws IOException {
+            ctx.write(ECHO_PREFIX, frame);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package nonBlockingIO;
+
+/*
+ * Lock-free multi-producer / single-consumer queue (Vyukov's intrusive MPSC list, unbounded).
+
+    Any thread may offer(); only the event loop polls.
+
+      head (consumer)                       tail (producers)
+        ↓                                     ↓
+      [stub] → [task 1] → [task 2] → ... → [task N]
+
+    offer:  swap tail to the new node (one getAndSet, never fails, no CAS retry loop),
+            then link the old tail to it
+    poll:   step head forward; the old node becomes the new stub (no lock, no CAS)
+
+    Compared to ConcurrentLinkedQueue: producers never retry against each other and the
+    consumer never touches an atomic. Between the getAndSet and the link a node is
+    "in flight": poll() may return null while isEmpty() is already false. The loop then
+    just selectNow()s and picks it up on the next iteration.
+
+    offer() reports whether the queue was empty. That is the only moment the loop can be
+    asleep in select() waiting for work, so it is the only offer that needs a wakeup:
+    a burst of 1000 cross-thread writes costs one selector.wakeup(), not 1000.
+ */
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MpscQueue<E> {
+
+    private static final class Node<E> {
+        private E value;
+        private volatile Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<E>> tail;
+    private volatile Node<E> head; // written by the consumer only, read by producers
+
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    // Any thread. Returns true if the queue was empty before this element (the consumer may be asleep).
+    public boolean offer(E value) {
+        Node<E> node = new Node<>(Objects.requireNonNull(value));
+        Node<E> previous = tail.getAndSet(node);
+        // The consumer cannot step past `previous` before it is linked, so this answer stays true until then
+        boolean wasEmpty = previous == head;
+        previous.next = node; // volatile write publishes the value
+        return wasEmpty;
+    }
+
+    // Consumer thread only
+    public E poll() {
+        Node<E> next = head.next;
+        if (next == null) {
+            return null; // empty, or the next node is not linked yet
+        }
+        E value = next.value;
+        next.value = null; // the node becomes the stub, don't keep the task reachable
+        head = next;
+        return value;
+    }
+
+    // Counts in-flight nodes too, so the consumer never goes to sleep on a task it has not seen yet
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
@@ -24,152 +24,1902 @@ package nonBlockingIO;
         10,000 clients → 1-10 threads → Scales beautifully! 🚀
          */
 
+import benchmark.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class NIOSelectors {
+    private static final byte[] PING = "ping".getBytes(StandardCharsets.UTF_8);
 
     // =============== NON BLOCKING SERVER ================
-    private static class NonBlockingServer {
+    /*
+     * Multi-reactor (boss / worker) layout, same idea as Netty's EventLoopGroups:
+     *
+     *   Boss selector (OP_ACCEPT) ─┬→ Worker 1 selector (OP_READ) → thread 1
+     *                              ├→ Worker 2 selector (OP_READ) → thread 2
+     *                              └→ Worker N selector (OP_READ) → thread N
+     *
+     * A channel stays on the worker it was handed to for its whole life,
+     * so its state is only ever touched by one thread.
+     * workerCount = 0 keeps the original single-loop design (accept + read on one thread).
+     *
+     * With acceptor sharding the boss is split into N listeners on the same port (SO_REUSEPORT):
+     *
+     *   SYN ─→ kernel (hash of the 4-tuple) ─┬→ listener 0 → boss selector       ─┐
+     *                                        ├→ listener 1 → acceptor 1 selector ─┼→ workers
+     *                                        └→ listener N → acceptor N selector ─┘
+     *
+     * Each listener has its own accept queue, so one thread draining accept() no longer caps the
+     * connection rate in a reconnect storm. With workerCount = 0 every acceptor keeps the
+     * connections it accepted (N independent single-loop servers sharing a port).
+     */
+    public static class NonBlockingServer {
+        private static final int READ_BUFFER_SIZE = 1024;
+        private static final byte[] NO_PREFIX = new byte[0];
+        private static final int MAX_FRAME_LENGTH = 64 * 1024;
+        private static final int OUTBOUND_HIGH_WATER = 64 * 1024;
+        private static final int OUTBOUND_LOW_WATER = OUTBOUND_HIGH_WATER / 2;
+        private static final int MAX_GATHER = 64; // buffers per gathering write (the kernel caps it at IOV_MAX)
+
+        // How the boss picks a worker for each new connection
+        public enum WorkerSelection {
+            ROUND_ROBIN,
+            LEAST_CONNECTIONS
+        }
+
+        private final int workerCount;
+        private final WorkerSelection workerSelection;
         private Selector selector;
         private ServerSocketChannel serverChannel;
+        private EventLoop boss;
+        private EventLoop[] workers;
+        private EventLoop[] acceptors;
+        private ServerSocketChannel[] listeners;
+        private final AtomicInteger nextWorker = new AtomicInteger(); // acceptors pick concurrently
+        private int acceptorShards = 1;
+        private volatile boolean running;
+        private volatile boolean verbose = true;
+        private long bufferPoolBytes = 64L * 1024 * 1024; // direct memory high-water mark, split across loops
+        private ChannelPipeline pipeline;
+        private boolean writeBatching = true;
+        private int maxBatchBytes = 16 * 1024;
+        private long maxBatchDelayNanos = 200_000;
+        private boolean wakeupCoalescing = true;
+        private long readIdleNanos = 300_000_000_000L;  // 5 min without a byte from the client
+        private long writeIdleNanos = 30_000_000_000L;  // 30s with queued output and no progress
+
+        public NonBlockingServer() {
+            this(Runtime.getRuntime().availableProcessors(), WorkerSelection.ROUND_ROBIN);
+        }
+
+        public NonBlockingServer(int workerCount, WorkerSelection workerSelection) {
+            this.workerCount = workerCount;
+            this.workerSelection = workerSelection;
+        }
+
+        public void setVerbose(boolean verbose) {
+            this.verbose = verbose;
+        }
+
+        public void setBufferPoolBytes(long bufferPoolBytes) {
+            this.bufferPoolBytes = bufferPoolBytes;
+        }
+
+        // Shared by all connections; defaults to newline framing + echo
+        public void setPipeline(ChannelPipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        // On: responses are queued and written once per select cycle with one gathering write.
+        // Off: every response is its own write() syscall.
+        public void setWriteBatching(boolean writeBatching) {
+            this.writeBatching = writeBatching;
+        }
+
+        // A batch is flushed early once it holds maxBytes or is older than maxDelayMicros
+        public void setBatchLimits(int maxBytes, long maxDelayMicros) {
+            this.maxBatchBytes = maxBytes;
+            this.maxBatchDelayNanos = maxDelayMicros * 1_000;
+        }
+
+        // On: a task posted from another thread wakes the selector only if the task queue was empty.
+        // Off: every posted task calls selector.wakeup() (the ConcurrentLinkedQueue-era behaviour).
+        public void setWakeupCoalescing(boolean wakeupCoalescing) {
+            this.wakeupCoalescing = wakeupCoalescing;
+        }
+
+        // > 1: that many listening channels on the port with SO_REUSEPORT, each with its own selector
+        // and thread; the kernel spreads new connections across them. Falls back to 1 where unsupported.
+        public void setAcceptorShards(int acceptorShards) {
+            this.acceptorShards = acceptorShards;
+        }
+
+        // 0 disables a timeout. Idle connections are closed by the loop's timer wheel.
+        public void setIdleTimeouts(long readIdleMillis, long writeIdleMillis) {
+            this.readIdleNanos = readIdleMillis * 1_000_000;
+            this.writeIdleNanos = writeIdleMillis * 1_000_000;
+        }
 
         public void start(int port) throws IOException {
+            if (pipeline == null) {
+                pipeline = new ChannelPipeline(new ChannelPipeline.LineDecoder(MAX_FRAME_LENGTH),
+                        new ChannelPipeline.LineEncoder());
+                if (verbose) {
+                    pipeline.addLast(new ChannelPipeline.LoggingHandler());
+                }
+                pipeline.addLast(new ChannelPipeline.EchoHandler());
+            }
+
             // 1. Create Selector
             selector = Selector.open();
+            boss = new EventLoop(selector);
             System.out.println("✅ Selector Created");
 
-            // 2. Create Server Socket Channel
+            // 2. Create Server Socket Channel(s)
             serverChannel = ServerSocketChannel.open();
-            serverChannel.bind(new InetSocketAddress(port));
-            serverChannel.configureBlocking(false); // NON-BLOCKING
-            System.out.println("✅ Server listening on port: " + port);
+            int shards = acceptorShards;
+            if (shards > 1 && !serverChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                System.out.println("⚠\uFE0F SO_REUSEPORT not supported here, using one acceptor");
+                shards = 1;
+            }
+            listeners = new ServerSocketChannel[shards];
+            acceptors = new EventLoop[shards];
+            listeners[0] = serverChannel;
+            acceptors[0] = boss;
+            for (int i = 0; i < shards; i++) {
+                if (i > 0) {
+                    listeners[i] = ServerSocketChannel.open();
+                }
+                if (shards > 1) {
+                    listeners[i].setOption(StandardSocketOptions.SO_REUSEPORT, true); // before bind
+                }
+                listeners[i].bind(new InetSocketAddress(port));
+                listeners[i].configureBlocking(false); // NON-BLOCKING
+            }
+            System.out.println("✅ Server listening on port: " + port
+                    + (shards > 1 ? " (" + shards + " SO_REUSEPORT listeners)" : ""));
 
-            // 3. Register channel with Selector
+            // 3. Register channel(s) with their Selectors: the boss takes the first one
             serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            for (int i = 1; i < shards; i++) {
+                acceptors[i] = new EventLoop(Selector.open());
+                listeners[i].register(acceptors[i].selector, SelectionKey.OP_ACCEPT);
+            }
             System.out.println("✅ Server registered for ACCEPT events");
+
+            // 4. Start worker event loops, each with its own Selector and thread
+            running = true;
+            if (workerCount > 0) {
+                workers = new EventLoop[workerCount];
+                for (int i = 0; i < workerCount; i++) {
+                    workers[i] = new EventLoop(Selector.open());
+                    Thread thread = new Thread(workers[i], "nio-worker-" + i);
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                System.out.println("✅ " + workerCount + " worker selectors started (" + workerSelection + ")");
+            } else {
+                workers = acceptors;
+                System.out.println("✅ Single event loop" + (shards > 1 ? " per listener" : "")
+                        + " (accept + read on one thread)");
+            }
+            // Extra acceptors only start once there are workers to hand connections to
+            for (int i = 1; i < shards; i++) {
+                Thread thread = new Thread(acceptors[i], "nio-acceptor-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
             System.out.println("\nWaiting for clients....\n");
 
-            // 4. Event loop
-            while (true) {
-                // Wait for events (blocking but handles ALL connections)
-                int readyChannels = selector.select();
+            // 5. The boss event loop runs on the calling thread
+            boss.run();
+        }
+
+        public void stop() throws IOException {
+            running = false;
+            for (EventLoop worker : workers) {
+                worker.selector.wakeup();
+            }
+            for (int i = 0; i < acceptors.length; i++) {
+                acceptors[i].selector.wakeup();
+                listeners[i].close();
+            }
+        }
+
+        private EventLoop chooseWorker() {
+            if (workerSelection == WorkerSelection.LEAST_CONNECTIONS) {
+                EventLoop least = workers[0];
+                for (EventLoop worker : workers) {
+                    if (worker.connections.get() < least.connections.get()) {
+                        least = worker;
+                    }
+                }
+                return least;
+            }
+            return workers[Math.floorMod(nextWorker.getAndIncrement(), workers.length)];
+        }
+
+        private void handleAccept(SelectionKey key, EventLoop acceptor) throws IOException {
+            ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
+            SocketChannel clientChannel;
+
+            // Drain every pending connection, not just one per wakeup
+            while ((clientChannel = serverChannel.accept()) != null) {
+                try {
+                    clientChannel.configureBlocking(false);
+                    // Replies are small and written as soon as they are ready: don't let Nagle hold them
+                    // back waiting for the client's delayed ACK
+                    clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    if (verbose) {
+                        System.out.println("✅ New client connected: " + clientChannel.getRemoteAddress());
+                    }
+                    // Without workers an acceptor serves what it accepted itself
+                    (workerCount > 0 ? chooseWorker() : acceptor).register(clientChannel);
+                    acceptor.accepted++;
+                } catch (IOException e) {
+                    // Only this client is lost (reset already?); the listener is fine, keep accepting
+                    System.err.println("Error setting up client: " + e.getMessage());
+                    try {
+                        clientChannel.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+
+        private void handleRead(SelectionKey key) throws IOException {
+            Connection connection = (Connection) key.attachment();
+            SocketChannel clientChannel = connection.channel;
+            BufferPool pool = connection.loop.bufferPool;
+
+            // An upload in progress takes the bytes straight from the socket
+            if (connection.sink != null && !connection.receive()) {
+                return;
+            }
+
+            // Per-connection accumulation buffer: only leased while a partial frame is pending
+            if (connection.inbound == null) {
+                connection.inbound = pool.lease(READ_BUFFER_SIZE);
+            }
+
+            int bytesRead = clientChannel.read(connection.inbound);
+            connection.lastReadNanos = connection.loop.nowNanos;
+
+            if (bytesRead == -1) {
+                // Client disconnected
+                if (verbose) {
+                    System.out.println("❌ Client disconnected:" + clientChannel.getRemoteAddress());
+                }
+                connection.close();
+                return;
+            }
+
+            // Process every complete frame in the buffer, 0..N per read
+            ByteBuffer inbound = connection.inbound;
+            inbound.flip();
+            ByteBuffer frame;
+            while (key.isValid() && !connection.closing && connection.sink == null
+                    && (frame = pipeline.decoder().decode(inbound)) != null) {
+                pipeline.fireFrame(connection, frame);
+            }
+
+            if (!key.isValid()) {
+                return; // a handler closed the connection
+            }
+            if (!inbound.hasRemaining()) {
+                // Nothing left to process → the connection is idle, hand the buffer back.
+                // Idle connections hold no memory at all, even with 100k of them.
+                pool.release(inbound);
+                connection.inbound = null;
+            } else if (inbound.position() == 0 && inbound.limit() == inbound.capacity()) {
+                // Partial frame fills the whole buffer: move it to the next size class
+                ByteBuffer bigger = pool.lease(inbound.capacity() * 2);
+                bigger.put(inbound);
+                pool.release(inbound);
+                connection.inbound = bigger;
+            } else {
+                inbound.compact(); // keep the partial frame for the next read
+            }
+        }
+
+        public String stats() {
+            StringBuilder stats = new StringBuilder();
+            for (int i = 0; i < workers.length; i++) {
+                EventLoop loop = workers[i];
+                stats.append("  loop ").append(i)
+                        .append(": connections=").append(loop.connections.get())
+                        .append(", queuedBytes=").append(loop.queuedBytes)
+                        .append(", readSuspensions=").append(loop.readSuspensions)
+                        .append(", writes=").append(loop.writeSyscalls)
+                        .append(" for ").append(loop.messagesWritten).append(" messages")
+                        .append(", idleClosed=").append(loop.idleClosed)
+                        .append(", autoReadPauses=").append(loop.autoReadPauses)
+                        .append(", fileBytesSent=").append(loop.fileBytesSent)
+                        .append(", fileBytesReceived=").append(loop.fileBytesReceived)
+                        .append(", wakeups=").append(loop.wakeups.sum())
+                        .append(" for ").append(loop.postedTasks.sum()).append(" posted tasks")
+                        .append("\n    wheel: ").append(loop.timers)
+                        .append("\n    pool: ").append(loop.bufferPool).append("\n");
+            }
+            if (acceptors.length > 1) {
+                stats.append("  accepted per listener: ").append(Arrays.toString(getAccepted())).append("\n");
+            }
+            return stats.toString();
+        }
+
+        public long getQueuedBytes() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.queuedBytes;
+            }
+            return total;
+        }
+
+        public long getReadSuspensions() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.readSuspensions;
+            }
+            return total;
+        }
+
+        public long getIdleClosed() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.idleClosed;
+            }
+            return total;
+        }
+
+        public long getAutoReadPauses() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.autoReadPauses;
+            }
+            return total;
+        }
+
+        public long getWriteSyscalls() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.writeSyscalls;
+            }
+            return total;
+        }
+
+        public long getMessagesWritten() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.messagesWritten;
+            }
+            return total;
+        }
+
+        // Connections accepted by each listener; the kernel's SO_REUSEPORT spread
+        public long[] getAccepted() {
+            long[] accepted = new long[acceptors.length];
+            for (int i = 0; i < acceptors.length; i++) {
+                accepted[i] = acceptors[i].accepted;
+            }
+            return accepted;
+        }
+
+        public long getWakeups() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.wakeups.sum();
+            }
+            return total;
+        }
+
+        public long getPostedTasks() {
+            long total = 0;
+            for (EventLoop loop : workers) {
+                total += loop.postedTasks.sum();
+            }
+            return total;
+        }
+
+        /*
+         * Per-connection state, attached to the SelectionKey.
+         *
+         * write() may only push part of a buffer into the socket (kernel send buffer full).
+         * The rest waits in the outbound queue and OP_WRITE tells us when to try again:
+         *
+         *   write → partial → queue + OP_WRITE → writable → flush → queue empty → drop OP_WRITE
+         *
+         * Backpressure: once more than OUTBOUND_HIGH_WATER bytes are queued we stop reading
+         * from that client (drop OP_READ). A client that never reads its responses can then
+         * no longer make us buffer without limit. Reading resumes below OUTBOUND_LOW_WATER.
+         *
+         * Write batching: a pipelining client can get 50 responses out of one read.
+         * Instead of 50 write() calls they are queued and the loop flushes them together
+         * at the end of the select cycle:
+         *
+         *   read → 50 frames → 50 x enqueue → ... other keys ... → ONE write(ByteBuffer[50])
+         *
+         * A batch goes out earlier if it reaches maxBatchBytes or gets older than
+         * maxBatchDelayNanos (a long cycle over many busy keys must not delay the first one).
+         *
+         * Idle timeouts: the connection is its own node in the loop's TimerWheel. Reads and
+         * writes only stamp lastReadNanos / lastWriteNanos (no timer operation at all); when
+         * the single timer fires it checks the stamps and either closes the connection or
+         * re-arms itself for the remaining time:
+         *
+         *   read idle:  nothing received for readIdleNanos          → half-dead client
+         *   write idle: output queued, nothing sent for writeIdleNanos → client stopped reading
+         */
+        private class Connection extends TimerWheel.Timeout
+                implements ChannelPipeline.LoopContext, ChannelPipeline.FileContext {
+            private final SelectionKey key;
+            private final SocketChannel channel;
+            private final EventLoop loop;
+            private ByteBuffer inbound;
+            private final ArrayDeque<Object> outbound = new ArrayDeque<>(); // ByteBuffer or FileRegion
+            private long queuedBytes;
+            private boolean readSuspended;
+            private boolean autoRead = true;
+            private boolean closed;
+            private boolean closing; // close as soon as the outbound queue drains
+            private boolean flushScheduled;
+            private long batchStartNanos;
+            private long lastReadNanos;
+            private long lastWriteNanos; // last time the socket took bytes, or the queue became non-empty
+            private ChannelPipeline.FileSink sink; // set while an upload bypasses the decoder
+
+            Connection(SelectionKey key, EventLoop loop) {
+                this.key = key;
+                this.channel = (SocketChannel) key.channel();
+                this.loop = loop;
+                this.lastReadNanos = loop.nowNanos;
+                this.lastWriteNanos = loop.nowNanos;
+                armIdleTimer(loop.nowNanos);
+            }
+
+            private void armIdleTimer(long nowNanos) {
+                long delay = Long.MAX_VALUE;
+                if (readIdleNanos > 0 && !readPaused()) {
+                    delay = readIdleNanos - (nowNanos - lastReadNanos);
+                }
+                if (writeIdleNanos > 0) {
+                    // Nothing queued → nothing can stall before a full writeIdleNanos from now
+                    long writeDelay = outbound.isEmpty() ? writeIdleNanos : writeIdleNanos - (nowNanos - lastWriteNanos);
+                    delay = Math.min(delay, writeDelay);
+                }
+                if (delay != Long.MAX_VALUE) {
+                    loop.timers.schedule(this, Math.max(delay, 0));
+                }
+            }
+
+            @Override
+            protected void expire(long nowNanos) {
+                if (!key.isValid()) {
+                    return;
+                }
+                String reason = null;
+                if (readIdleNanos > 0 && !readPaused() && nowNanos - lastReadNanos >= readIdleNanos) {
+                    reason = "read idle";
+                } else if (writeIdleNanos > 0 && !outbound.isEmpty() && nowNanos - lastWriteNanos >= writeIdleNanos) {
+                    reason = "write stalled";
+                }
+
+                if (reason == null) {
+                    armIdleTimer(nowNanos); // there was activity meanwhile, sleep for the rest
+                    return;
+                }
+                if (verbose) {
+                    System.out.println("⏰ Closing connection (" + reason + ")");
+                }
+                loop.idleClosed++;
+                try {
+                    close();
+                } catch (IOException ignored) {
+                }
+            }
+
+            @Override
+            public void write(ByteBuffer payload) throws IOException {
+                write(NO_PREFIX, payload);
+            }
+
+            // Encoder frames the payload straight into a leased outbound buffer
+            @Override
+            public void write(byte[] prefix, ByteBuffer payload) throws IOException {
+                ChannelPipeline.Encoder encoder = pipeline.encoder();
+                int length = prefix.length + payload.remaining();
+                ByteBuffer out = loop.bufferPool.lease(encoder.overhead() + length);
+
+                encoder.writeHeader(length, out);
+                out.put(prefix).put(payload);
+                encoder.writeTrailer(out);
+                out.flip();
+                enqueue(out);
+            }
+
+            // Takes ownership of a leased, flipped buffer
+            void enqueue(ByteBuffer buffer) throws IOException {
+                if (closed) {
+                    loop.bufferPool.release(buffer); // a late write from execute() after the client left
+                    return;
+                }
+                loop.messagesWritten++;
+                if (writeBatching) {
+                    batch(buffer);
+                    return;
+                }
+
+                if (outbound.isEmpty()) {
+                    lastWriteNanos = loop.nowNanos;
+                    channel.write(buffer);
+                    loop.writeSyscalls++;
+                    if (!buffer.hasRemaining()) {
+                        loop.bufferPool.release(buffer);
+                        return;
+                    }
+                }
+
+                // Kernel did not take everything: keep the rest, in order
+                outbound.add(buffer);
+                queued(buffer.remaining());
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                suspendReadIfFull();
+            }
+
+            // File bytes count as queued output, so a big download also pauses reading pipelined requests
+            @Override
+            public void writeFile(ChannelPipeline.FileRegion region) throws IOException {
+                loop.messagesWritten++;
+                if (writeBatching) {
+                    batch(region, region.remaining());
+                    return;
+                }
+
+                if (outbound.isEmpty()) {
+                    lastWriteNanos = loop.nowNanos;
+                }
+                outbound.add(region);
+                queued(region.remaining());
+                if ((key.interestOps() & SelectionKey.OP_WRITE) == 0) {
+                    flush();
+                }
+                suspendReadIfFull();
+            }
+
+            @Override
+            public void closeWhenFlushed() throws IOException {
+                if (outbound.isEmpty()) {
+                    close();
+                    return;
+                }
+                closing = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ); // ignore anything sent after this
+            }
+
+            @Override
+            public void receiveFile(ChannelPipeline.FileSink sink) throws IOException {
+                this.sink = sink;
+                if (inbound != null && inbound.hasRemaining()) {
+                    sink.write(inbound); // body bytes that came in with the header
+                }
+                if (sink.remaining() == 0) {
+                    this.sink = null;
+                    sink.completed(this);
+                }
+            }
+
+            // Returns true once the upload is complete and normal reading may go on
+            private boolean receive() throws IOException {
+                lastReadNanos = loop.nowNanos;
+                long moved = sink.receive(channel);
+                if (moved == -1) {
+                    if (verbose) {
+                        System.out.println("❌ Client disconnected mid-upload");
+                    }
+                    close();
+                    return false;
+                }
+                loop.fileBytesReceived += moved;
+                if (sink.remaining() > 0) {
+                    return false;
+                }
+                ChannelPipeline.FileSink done = sink;
+                sink = null;
+                done.completed(this);
+                return key.isValid();
+            }
+
+            private void batch(ByteBuffer buffer) throws IOException {
+                batch(buffer, buffer.remaining());
+            }
+
+            private void batch(Object message, long bytes) throws IOException {
+                if (outbound.isEmpty()) {
+                    lastWriteNanos = loop.nowNanos;
+                }
+                outbound.add(message);
+                queued(bytes);
+
+                // Waiting for OP_WRITE already → that flush will pick this buffer up too
+                boolean waitingForWritable = (key.interestOps() & SelectionKey.OP_WRITE) != 0;
+                if (!flushScheduled && !waitingForWritable) {
+                    flushScheduled = true;
+                    batchStartNanos = System.nanoTime();
+                    loop.pendingFlushes.add(this);
+                }
 
-                if (readyChannels == 0) {
-                    continue;
+                if (flushScheduled && (queuedBytes >= maxBatchBytes
+                        || System.nanoTime() - batchStartNanos >= maxBatchDelayNanos)) {
+                    flush();
                 }
+                suspendReadIfFull();
+            }
 
-                // Get channels that have events
-                Set<SelectionKey> selectedKeys = selector.selectedKeys();
-                Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
+            private void suspendReadIfFull() {
+                if (key.isValid() && !readSuspended && queuedBytes > OUTBOUND_HIGH_WATER) {
+                    readSuspended = true;
+                    loop.readSuspensions++;
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                }
+            }
 
-                while (keyIterator.hasNext()) {
-                    SelectionKey key = keyIterator.next();
+            // Called on OP_WRITE and at the end of a select cycle for batched connections.
+            // Hands the kernel up to MAX_GATHER queued buffers per call (writev);
+            // a file region goes out on its own with transferTo (sendfile).
+            void flush() throws IOException {
+                flushScheduled = false;
+                ByteBuffer[] gather = loop.gather;
+                while (!outbound.isEmpty()) {
+                    long written;
+                    boolean socketFull;
+                    if (outbound.peek() instanceof ChannelPipeline.FileRegion region) {
+                        written = region.transferTo(channel);
+                        loop.fileBytesSent += written;
+                        socketFull = region.remaining() > 0;
+                        if (!socketFull) {
+                            outbound.poll();
+                            region.release();
+                        }
+                    } else {
+                        int count = 0;
+                        long offered = 0;
+                        for (Object message : outbound) {
+                            if (!(message instanceof ByteBuffer buffer)) {
+                                break; // stop in front of a file region
+                            }
+                            gather[count++] = buffer;
+                            offered += buffer.remaining();
+                            if (count == gather.length) {
+                                break;
+                            }
+                        }
 
+                        written = channel.write(gather, 0, count);
+                        Arrays.fill(gather, 0, count, null);
+                        while (outbound.peek() instanceof ByteBuffer head && !head.hasRemaining()) {
+                            outbound.poll();
+                            loop.bufferPool.release(head);
+                        }
+                        socketFull = written < offered;
+                    }
+
+                    loop.writeSyscalls++;
+                    if (written > 0) {
+                        lastWriteNanos = loop.nowNanos;
+                    }
+                    queued(-written);
+                    if (socketFull) {
+                        // wait for the next OP_WRITE; a partial transferTo resumes where it stopped
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                if (closing) {
+                    close();
+                    return;
+                }
+                resumeReadIfDrained();
+            }
+
+            private void resumeReadIfDrained() {
+                if (readSuspended && !closing && queuedBytes <= OUTBOUND_LOW_WATER) {
+                    readSuspended = false;
+                    if (autoRead) {
+                        readsResumed();
+                    }
+                }
+            }
+
+            private boolean readPaused() {
+                return readSuspended || !autoRead;
+            }
+
+            // Reads stop either because output backs up (readSuspended) or because a handler
+            // cannot keep up (autoRead off); OP_READ comes back only when neither holds
+            @Override
+            public void setAutoRead(boolean autoRead) {
+                if (this.autoRead == autoRead || !key.isValid()) {
+                    return;
+                }
+                this.autoRead = autoRead;
+                if (!autoRead) {
+                    loop.autoReadPauses++;
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                } else if (!readSuspended) {
+                    readsResumed();
+                }
+            }
+
+            private void readsResumed() {
+                lastReadNanos = loop.nowNanos; // time spent paused is not the client's idleness
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                // The timer may have lapsed while paused (nothing to watch without write idleness)
+                armIdleTimer(loop.nowNanos);
+            }
+
+            @Override
+            public void execute(Runnable task) {
+                loop.execute(task);
+            }
+
+            private void queued(long bytes) {
+                queuedBytes += bytes;
+                loop.queuedBytes += bytes;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                if (sink != null) {
+                    sink.failed();
+                    sink = null;
+                }
+                pipeline.fireClose(this);
+                if (inbound != null) {
+                    loop.bufferPool.release(inbound);
+                    inbound = null;
+                }
+                Object message;
+                while ((message = outbound.poll()) != null) {
+                    if (message instanceof ChannelPipeline.FileRegion region) {
+                        region.release();
+                    } else {
+                        loop.bufferPool.release((ByteBuffer) message);
+                    }
+                }
+                loop.queuedBytes -= queuedBytes;
+                queuedBytes = 0;
+                loop.timers.cancel(this);
+                loop.connections.decrementAndGet();
+                key.cancel();
+                channel.close();
+            }
+        }
+
+        // One Selector + one thread. New channels arrive from the boss through a queue
+        // because SocketChannel.register() blocks while another thread is inside select().
+        // Work from other threads (offloaded handlers, fsync replies) arrives through an MPSC
+        // task queue that the loop drains once per iteration.
+        private class EventLoop implements Runnable {
+            private final Selector selector;
+            private final Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+            private final MpscQueue<Runnable> tasks = new MpscQueue<>();
+            private final AtomicInteger connections = new AtomicInteger();
+            private final BufferPool bufferPool = new BufferPool(bufferPoolBytes
+                    / (workerCount > 0 ? workerCount : acceptorShards));
+            private final ArrayList<Connection> pendingFlushes = new ArrayList<>();
+            private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+            private final TimerWheel timers = new TimerWheel(100, 512); // 100ms ticks, 51.2s per lap
+            private long nowNanos = System.nanoTime(); // cached once per select cycle
+            private volatile Thread owner;
+
+            // Backpressure counters, written by this loop only
+            private volatile long queuedBytes;
+            private volatile long readSuspensions;
+            private volatile long writeSyscalls;
+            private volatile long messagesWritten;
+            private volatile long idleClosed;
+            private volatile long autoReadPauses;
+            private volatile long fileBytesSent;
+            private volatile long fileBytesReceived;
+            private volatile long accepted;
+
+            // Written by the posting threads
+            private final LongAdder postedTasks = new LongAdder();
+            private final LongAdder wakeups = new LongAdder();
+
+            EventLoop(Selector selector) {
+                this.selector = selector;
+            }
+
+            void register(SocketChannel channel) throws IOException {
+                if (Thread.currentThread() == owner) {
+                    attach(channel);
+                    connections.incrementAndGet();
+                } else {
+                    connections.incrementAndGet();
+                    newChannels.add(channel);
+                    selector.wakeup();
+                }
+            }
+
+            // Any thread may hand work to the loop, e.g. a reactive subscriber writing a response.
+            // wakeup() is a syscall (a write to the selector's wakeup pipe), so it is only paid when
+            // the queue goes from empty to non-empty: a non-empty queue means the loop is either
+            // awake already or has a wakeup on its way, and it drains everything when it gets there.
+            void execute(Runnable task) {
+                boolean wasEmpty = tasks.offer(task);
+                if (Thread.currentThread() == owner) {
+                    return; // run() selectNow()s while tasks are queued
+                }
+                postedTasks.increment();
+                if (wasEmpty || !wakeupCoalescing) {
+                    wakeups.increment();
+                    selector.wakeup();
+                }
+            }
+
+            private void runTasks() {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
                     try {
-                        if (key.isAcceptable()) {
-                            handleAccept(key);
-                        } else if (key.isReadable()) {
-                            handleRead(key);
+                        task.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Event loop task failed: " + e);
+                    }
+                }
+                if (!tasks.isEmpty()) {
+                    Thread.yield(); // a producer is between its getAndSet and the link, let it finish
+                }
+            }
+
+            private void attach(SocketChannel channel) throws IOException {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                key.attach(new Connection(key, this));
+            }
+
+            @Override
+            public void run() {
+                owner = Thread.currentThread();
+                try {
+                    while (running) {
+                        // Wait for events (blocking but handles ALL connections),
+                        // or until the next idle timeout is due
+                        long timeoutNanos = timers.nanosUntilNextTick(System.nanoTime());
+                        if (!tasks.isEmpty()) {
+                            selector.selectNow(); // tasks queued by this thread itself, don't sleep on them
+                        } else if (timeoutNanos < 0) {
+                            selector.select();
+                        } else {
+                            selector.select(Math.max(1, (timeoutNanos + 999_999) / 1_000_000));
+                        }
+                        nowNanos = System.nanoTime();
+                        registerNewChannels();
+                        runTasks();
+
+                        // Get channels that have events
+                        Set<SelectionKey> selectedKeys = selector.selectedKeys();
+                        Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
+
+                        while (keyIterator.hasNext()) {
+                            SelectionKey key = keyIterator.next();
+                            keyIterator.remove();
+
+                            try {
+                                if (key.isAcceptable()) {
+                                    handleAccept(key, this);
+                                    continue;
+                                }
+                                // Flush first: it may free enough room to keep reading
+                                if (key.isWritable()) {
+                                    ((Connection) key.attachment()).flush();
+                                }
+                                if (key.isValid() && key.isReadable()) {
+                                    handleRead(key);
+                                }
+                            } catch (IOException ex) {
+                                System.err.println("Error handling client: " + ex.getMessage());
+                                closeKey(key);
+                            } catch (RuntimeException ex) {
+                                // A decoder or handler bug costs its own connection, not the whole loop
+                                System.err.println("Pipeline failed on a client: " + ex);
+                                closeKey(key);
+                            }
                         }
+
+                        flushPending();
+                        timers.advance(nowNanos);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    closeAll();
+                }
+            }
+
+            // Quietly: a failing close must not escape the per-key catch and end the loop
+            private void closeKey(SelectionKey key) {
+                key.cancel();
+                try {
+                    if (key.attachment() instanceof Connection connection) {
+                        connection.close();
+                    } else {
+                        key.channel().close();
+                    }
+                } catch (IOException ignored) {
+                }
+            }
+
+            // End of the select cycle: everything batched during it goes out now
+            private void flushPending() {
+                for (Connection connection : pendingFlushes) {
+                    if (!connection.flushScheduled || !connection.key.isValid()) {
+                        continue; // already flushed early, or closed meanwhile
+                    }
+                    try {
+                        connection.flush();
                     } catch (IOException ex) {
                         System.err.println("Error handling client: " + ex.getMessage());
-                        key.cancel();
+                        try {
+                            connection.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+                pendingFlushes.clear();
+            }
+
+            private void registerNewChannels() throws IOException {
+                SocketChannel channel;
+                while ((channel = newChannels.poll()) != null) {
+                    attach(channel);
+                }
+            }
+
+            private void closeAll() {
+                for (SelectionKey key : selector.keys()) {
+                    try {
                         key.channel().close();
+                    } catch (IOException ignored) {
                     }
-                    keyIterator.remove();
                 }
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+    }
+
+
+    // =============== NON BLOCKING CLIENT ============
+    // One request over NioClient: OP_CONNECT instead of sleep-polling finishConnect(),
+    // and the response is a decoded frame, however many reads it took to arrive
+    private static class NonBlockingClient {
+
+        public void connect(String host, int port, String message) throws IOException {
+            try (NioClient client = NioClient.start(new ChannelPipeline.LineDecoder(64 * 1024),
+                    new ChannelPipeline.LineEncoder())) {
+                client.setConnectTimeout(3_000);
+                NioClient.Connection connection = client.connect(new InetSocketAddress(host, port)).get();
+                System.out.println("✅ Connected to Server");
+
+                ByteBuffer request = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+                CompletableFuture<ByteBuffer> response = connection.request(request);
+                System.out.println("➡\uFE0F Sent: " + message);
+
+                String reply = StandardCharsets.UTF_8.decode(response.get(5, TimeUnit.SECONDS)).toString();
+                System.out.println("⬅\uFE0F Received: " + reply);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            } catch (InterruptedException | TimeoutException e) {
+                throw new IOException(e);
+            }
+        }
+
+    }
 
+    // =============== SINGLE LOOP vs MULTI-REACTOR ===============
+    public void reactorComparison() throws InterruptedException {
+        System.out.println("=== Single Event Loop vs Multi-Reactor (loopback echo) ===\n");
+
+        int clients = 64;
+        int messagesPerClient = 2_000;
+
+        NonBlockingServer single = new NonBlockingServer(0, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        NonBlockingServer multi = new NonBlockingServer();
+
+        long singleRate = measureEchoThroughput(single, 8181, clients, messagesPerClient);
+        long multiRate = measureEchoThroughput(multi, 8182, clients, messagesPerClient);
+
+        System.out.println("\nResults (" + clients + " clients x " + messagesPerClient + " messages):");
+        System.out.println("  Single event loop: " + singleRate + " msg/s");
+        System.out.println("  Multi-reactor (" + Runtime.getRuntime().availableProcessors() + " workers): " + multiRate + " msg/s");
+        System.out.println("  Speed up: " + String.format("%.2fx", (double) multiRate / singleRate));
+    }
+
+    private long measureEchoThroughput(NonBlockingServer server, int port, int clients, int messagesPerClient)
+            throws InterruptedException {
+        server.setVerbose(false);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200); // let the server bind
+
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
 
+        for (int i = 0; i < clients; i++) {
+            new Thread(() -> {
+                try (Socket socket = new Socket("localhost", port);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                     PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+                    for (int m = 0; m < messagesPerClient; m++) {
+                        out.println("ping");
+                        in.readLine();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Client error: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
         }
 
-        private void handleAccept(SelectionKey key) throws IOException {
-            ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
-            SocketChannel clientChannel = serverChannel.accept();
+        done.await();
+        long nanos = System.nanoTime() - start;
+        System.out.print(server.stats());
 
-            if (clientChannel != null) {
-                clientChannel.configureBlocking(false);
-                clientChannel.register(selector, SelectionKey.OP_READ);
+        try {
+            server.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        serverThread.join();
 
-                System.out.println("✅ New client connected: " + clientChannel.getRemoteAddress());
+        return (long) clients * messagesPerClient * 1_000_000_000L / nanos;
+    }
+
+    // =============== SLOW CLIENT BACKPRESSURE ===============
+    // A client that writes as fast as it can but never reads its echoes.
+    // Without backpressure the server would queue every echo in memory.
+    public void slowClientDemo() throws IOException, InterruptedException {
+        System.out.println("=== Slow Client Backpressure ===\n");
+
+        int port = 8183;
+        NonBlockingServer server = new NonBlockingServer(1, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        Socket socket = new Socket("localhost", port);
+        Thread writer = new Thread(() -> {
+            byte[] chunk = new byte[8192];
+            Arrays.fill(chunk, (byte) 'x');
+            for (int i = 63; i < chunk.length; i += 64) {
+                chunk[i] = '\n'; // 128 lines per chunk
+            }
+            try {
+                for (int i = 0; i < 10_000; i++) {
+                    socket.getOutputStream().write(chunk); // blocks once the server stops reading
+                }
+            } catch (IOException e) {
+                // socket closed at the end of the demo
+            }
+        });
+        writer.start();
+
+        Thread.sleep(2000);
+        System.out.println("After 2s of a client that never reads:");
+        System.out.println("  Bytes queued on server: " + server.getQueuedBytes() + " (bounded)");
+        System.out.println("  Read suspensions: " + server.getReadSuspensions());
+        System.out.print(server.stats());
+
+        socket.close();
+        writer.join();
+        server.stop();
+        serverThread.join();
+    }
+
+    // =============== FRAMING: FRAGMENTED + COALESCED WRITES ===============
+    public void framingDemo() throws IOException, InterruptedException {
+        System.out.println("=== Length-Prefixed Framing ===\n");
+
+        int port = 8184;
+        NonBlockingServer server = new NonBlockingServer(1, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        server.setPipeline(new ChannelPipeline(new ChannelPipeline.LengthFieldDecoder(64 * 1024),
+                new ChannelPipeline.LengthFieldEncoder())
+                .addLast(new ChannelPipeline.LoggingHandler())
+                .addLast(new ChannelPipeline.EchoHandler()));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        try (Socket socket = new Socket("localhost", port)) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            // Three frames in ONE write (coalesced)
+            ByteBuffer batch = ByteBuffer.allocate(64);
+            for (String message : new String[]{"one", "two", "three"}) {
+                byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+                batch.putInt(bytes.length).put(bytes);
             }
+            out.write(batch.array(), 0, batch.position());
 
+            // One frame split over two writes (fragmented)
+            byte[] bytes = "fragmented".getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes, 0, 4);
+            out.flush();
+            Thread.sleep(100);
+            out.write(bytes, 4, bytes.length - 4);
+            out.flush();
+
+            for (int i = 0; i < 4; i++) {
+                byte[] response = new byte[in.readInt()];
+                in.readFully(response);
+                System.out.println("Client got: " + new String(response, StandardCharsets.UTF_8));
+            }
         }
 
-        private void handleRead(SelectionKey key) throws IOException {
-            SocketChannel clientChannel = (SocketChannel) key.channel();
-            ByteBuffer byteBuffer = ByteBuffer.allocate(1024);
+        server.stop();
+        serverThread.join();
+    }
 
-            int bytesRead = clientChannel.read(byteBuffer);
+    // =============== WRITE BATCHING: SYSCALLS PER MESSAGE ===============
+    // Clients pipeline bursts of small lines; every burst produces many echoes in one read.
+    public void writeBatchingDemo() throws InterruptedException {
+        System.out.println("=== Write Batching (gathering writes) ===\n");
 
-            if (bytesRead == -1) {
-                // Client disconnected
-                System.out.println("❌ Client disconnected:" + clientChannel.getRemoteAddress());
-                key.cancel();
-                key.channel().close();
+        int clients = 16;
+        int bursts = 2_000;
+        int linesPerBurst = 32;
+
+        long[] unbatched = measureBatching(false, 8185, clients, bursts, linesPerBurst);
+        long[] batched = measureBatching(true, 8186, clients, bursts, linesPerBurst);
+
+        System.out.println("\nResults (" + clients + " clients x " + bursts + " bursts of " + linesPerBurst + " lines):");
+        System.out.printf("  One write per message: %8d msg/s, %6.2f writes per message%n",
+                unbatched[0], (double) unbatched[1] / unbatched[2]);
+        System.out.printf("  Batched per cycle:     %8d msg/s, %6.2f writes per message%n",
+                batched[0], (double) batched[1] / batched[2]);
+    }
+
+    // Returns {messages per second, write syscalls, messages written}
+    private long[] measureBatching(boolean batching, int port, int clients, int bursts, int linesPerBurst)
+            throws InterruptedException {
+        NonBlockingServer server = new NonBlockingServer();
+        server.setVerbose(false);
+        server.setWriteBatching(batching);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        byte[] burst = "ping\n".repeat(linesPerBurst).getBytes(StandardCharsets.UTF_8);
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < clients; i++) {
+            new Thread(() -> {
+                try (Socket socket = new Socket("localhost", port);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                    socket.setTcpNoDelay(true);
+                    for (int b = 0; b < bursts; b++) {
+                        socket.getOutputStream().write(burst); // all lines in one packet
+                        for (int line = 0; line < linesPerBurst; line++) {
+                            in.readLine();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Client error: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        done.await();
+        long nanos = System.nanoTime() - start;
+        long[] result = {(long) clients * bursts * linesPerBurst * 1_000_000_000L / nanos,
+                server.getWriteSyscalls(), server.getMessagesWritten()};
+
+        try {
+            server.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        serverThread.join();
+        return result;
+    }
+
+    // =============== IDLE TIMEOUTS: TIMER WHEEL ===============
+    // Many connections that connect and then go silent, next to one client that keeps talking.
+    public void idleTimeoutDemo() throws IOException, InterruptedException {
+        System.out.println("=== Idle Connection Eviction (hashed timer wheel) ===\n");
+
+        int port = 8187;
+        int idleClients = 2_000;
+        NonBlockingServer server = new NonBlockingServer(1, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        server.setIdleTimeouts(2_000, 2_000);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        Socket[] idle = new Socket[idleClients];
+        for (int i = 0; i < idleClients; i++) {
+            idle[i] = new Socket("localhost", port); // connects, never sends a byte
+        }
+
+        try (Socket active = new Socket("localhost", port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(active.getInputStream()));
+             PrintWriter out = new PrintWriter(active.getOutputStream(), true)) {
+            Thread.sleep(100);
+            System.out.println("Connected: " + idleClients + " idle clients + 1 active client");
+            System.out.print(server.stats());
+
+            for (int i = 0; i < 20; i++) { // 4s of traffic, every 200ms
+                out.println("still here");
+                in.readLine();
+                Thread.sleep(200);
+            }
+            System.out.println("\nAfter 4s with a 2s read-idle timeout:");
+            System.out.println("  Closed as idle: " + server.getIdleClosed());
+            out.println("still here");
+            System.out.println("  Active client still served: " + in.readLine());
+            System.out.print(server.stats());
+        }
+
+        for (Socket socket : idle) {
+            socket.close();
+        }
+        server.stop();
+        serverThread.join();
+
+        // Why not a ScheduledExecutorService per connection? Schedule + cancel 100k timeouts:
+        int timers = 100_000;
+        TimerWheel wheel = new TimerWheel(100, 512);
+        TimerWheel.Timeout[] nodes = new TimerWheel.Timeout[timers];
+        for (int i = 0; i < timers; i++) {
+            nodes[i] = new TimerWheel.Timeout() { // in the server the Connection itself is the node
+                @Override
+                protected void expire(long nowNanos) {
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < timers; i++) {
+            wheel.schedule(nodes[i], (30 + i % 60) * 1_000_000_000L);
+        }
+        for (int i = 0; i < timers; i++) {
+            wheel.cancel(nodes[i]);
+        }
+        long wheelNanos = System.nanoTime() - start;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        ScheduledFuture<?>[] futures = new ScheduledFuture<?>[timers];
+        start = System.nanoTime();
+        for (int i = 0; i < timers; i++) {
+            futures[i] = executor.schedule(() -> {
+            }, 30 + i % 60, TimeUnit.SECONDS); // allocates a task + future, takes a lock
+        }
+        for (int i = 0; i < timers; i++) {
+            futures[i].cancel(false);
+        }
+        long executorNanos = System.nanoTime() - start;
+        executor.shutdownNow();
+
+        System.out.println("\nSchedule + cancel " + timers + " timeouts:");
+        System.out.println("  Timer wheel:                 " + wheelNanos / 1_000_000 + " ms");
+        System.out.println("  ScheduledThreadPoolExecutor: " + executorNanos / 1_000_000 + " ms");
+    }
+
+    // =============== CLIENT FAN-OUT: ONE SELECTOR, MANY CONNECTIONS ===============
+    // Every connection keeps `inFlight` requests outstanding; each response triggers the next request.
+    public void clientFanOutDemo() throws IOException, InterruptedException {
+        System.out.println("=== Client Fan-Out (one client selector) ===\n");
+
+        int port = 8188;
+        int connections = 1_000; // x2 file descriptors in this process: mind `ulimit -n`
+        int requestsPerConnection = 200;
+        int inFlight = 4;
+
+        NonBlockingServer server = new NonBlockingServer();
+        server.setVerbose(false);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
 
-            // Process data
-            byteBuffer.flip();
-            String message = StandardCharsets.UTF_8.decode(byteBuffer).toString();
-            System.out.println("⬅\uFE0F Received: " + message.trim());
+        try (NioClient client = NioClient.start(new ChannelPipeline.LineDecoder(1024), new ChannelPipeline.LineEncoder())) {
+            // A connect that never completes (blackholed address) fails on the timer wheel instead of hanging
+            client.setConnectTimeout(500);
+            try {
+                client.connect(new InetSocketAddress("10.255.255.1", 80)).join();
+            } catch (RuntimeException e) {
+                System.out.println("Unreachable backend: " + e.getCause());
+            }
 
-            // Echo back
-            String response = "Echo: " + message;
-            ByteBuffer bufferResponse = ByteBuffer.wrap(response.getBytes());
-            clientChannel.write(bufferResponse);
-            System.out.println("➡\uFE0F Sent: " + response.trim());
+            client.setConnectTimeout(5_000);
+            long start = System.nanoTime();
+            List<CompletableFuture<NioClient.Connection>> connecting = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                connecting.add(client.connect(new InetSocketAddress("localhost", port)));
+            }
+            CompletableFuture.allOf(connecting.toArray(new CompletableFuture<?>[0])).join();
+            System.out.printf("Connected %d sockets in %dms%n", connections, (System.nanoTime() - start) / 1_000_000);
+
+            LatencyHistogram latency = new LatencyHistogram();
+            CountDownLatch done = new CountDownLatch(connections * inFlight);
+            start = System.nanoTime();
+            for (CompletableFuture<NioClient.Connection> future : connecting) {
+                NioClient.Connection connection = future.join();
+                for (int i = 0; i < inFlight; i++) {
+                    sendChain(connection, requestsPerConnection / inFlight, latency, done);
+                }
+            }
+            done.await();
+            long nanos = System.nanoTime() - start;
 
+            long total = (long) connections * requestsPerConnection;
+            System.out.printf("%d requests over %d connections: %d req/s, %s%n",
+                    total, connections, total * 1_000_000_000L / nanos, latency.summary());
+            System.out.println("Client: " + client);
+            System.out.printf("  %.2f write syscalls per request%n", (double) client.getWriteSyscalls() / total);
         }
 
+        server.stop();
+        serverThread.join();
     }
 
+    // Runs on the client loop thread after the first request: no thread waits for a response
+    private void sendChain(NioClient.Connection connection, int remaining, LatencyHistogram latency,
+                           CountDownLatch done) {
+        if (remaining == 0) {
+            done.countDown();
+            return;
+        }
+        long sent = System.nanoTime();
+        connection.request(ByteBuffer.wrap(PING)).whenComplete((response, error) -> {
+            if (error != null) {
+                System.err.println("Request failed: " + error);
+                done.countDown();
+                return;
+            }
+            latency.record(System.nanoTime() - sent);
+            sendChain(connection, remaining - 1, latency, done);
+        });
+    }
 
-    // =============== NON BLOCKING CLIENT ============
-    private static class NonBlockingClient {
+    // =============== ZERO-COPY STATIC FILES: transferTo → sendfile ===============
+    public void staticFileDemo() throws IOException, InterruptedException {
+        System.out.println("=== Static Files with FileChannel.transferTo ===\n");
+
+        int port = 8189;
+        Path root = Files.createTempDirectory("nio-static");
+        Path file = root.resolve("large.bin");
+        int size = 256 * 1024 * 1024;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer block = ByteBuffer.allocate(1024 * 1024);
+            for (int i = 0; i < size / block.capacity(); i++) {
+                block.clear();
+                channel.write(block);
+            }
+        }
+
+        NonBlockingServer server = new NonBlockingServer(1, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        StaticFileHandler files = new StaticFileHandler(root, 256);
+        server.setPipeline(new ChannelPipeline(new ChannelPipeline.HttpRequestDecoder(8 * 1024),
+                new ChannelPipeline.RawEncoder()).addLast(files));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        try (Socket socket = new Socket("localhost", port)) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            byte[] sink = new byte[64 * 1024];
+
+            // Same keep-alive connection: two full downloads, then a Range request
+            for (int round = 0; round < 2; round++) {
+                long heapBefore = memory.getHeapMemoryUsage().getUsed();
+                long start = System.nanoTime();
+                out.write("GET /large.bin HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                long length = readHttpResponse(in, sink);
+                long nanos = System.nanoTime() - start;
+                System.out.printf("GET /large.bin: %dMB in %dms (%d MB/s), server heap grew %dKB%n",
+                        length / (1024 * 1024), nanos / 1_000_000, length * 1_000 / Math.max(1, nanos),
+                        (memory.getHeapMemoryUsage().getUsed() - heapBefore) / 1024);
+            }
+
+            out.write("GET /large.bin HTTP/1.1\r\nRange: bytes=-1000\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            System.out.println("Range bytes=-1000: " + readHttpResponse(in, sink) + " bytes");
+            out.write("GET /../etc/passwd HTTP/1.1\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            readHttpResponse(in, sink);
+            System.out.println("Connection closed by server after 'Connection: close': " + (in.read() == -1));
+        }
+        System.out.print(server.stats());
+
+        server.stop();
+        serverThread.join();
+        files.closeCache();
+        Files.delete(file);
+        Files.delete(root);
+    }
+
+    // Prints the status line, skips the body, returns Content-Length
+    private long readHttpResponse(DataInputStream in, byte[] sink) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (head.length() < 4 || !head.substring(head.length() - 4).equals("\r\n\r\n")) {
+            head.append((char) in.readUnsignedByte());
+        }
+        String[] lines = head.toString().split("\r\n");
+        long length = 0;
+        for (String line : lines) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Long.parseLong(line.substring(15).trim());
+            }
+        }
+        if (!lines[0].contains(" 200 ")) {
+            System.out.println("  " + lines[0]);
+        }
+        for (long left = length; left > 0; ) {
+            int n = in.read(sink, 0, (int) Math.min(sink.length, left));
+            if (n == -1) {
+                throw new IOException("Body cut short, " + left + " bytes missing");
+            }
+            left -= n;
+        }
+        return length;
+    }
+
+    // =============== UPLOADS: SOCKET → DISK WITH transferFrom ===============
+    public void uploadDemo() throws IOException, InterruptedException {
+        System.out.println("=== Upload Ingestion (transferFrom vs ByteBuffer copy) ===\n");
+
+        int clients = 4;
+        int uploadsPerClient = 4;
+        long size = 64L * 1024 * 1024;
+        Path directory = Files.createTempDirectory("nio-uploads");
+
+        measureUploads(false, 8190, directory, clients, uploadsPerClient, size);
+        measureUploads(true, 8191, directory, clients, uploadsPerClient, size);
+
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private void measureUploads(boolean zeroCopy, int port, Path directory, int clients, int uploadsPerClient,
+                                long size) throws IOException, InterruptedException {
+        NonBlockingServer server = new NonBlockingServer(2, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        UploadHandler uploads = UploadHandler.start(directory, zeroCopy, 64);
+        server.setPipeline(new ChannelPipeline(new ChannelPipeline.LengthFieldDecoder(1024),
+                new ChannelPipeline.LengthFieldEncoder()).addLast(uploads));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            new Thread(() -> {
+                byte[] block = new byte[256 * 1024];
+                try (Socket socket = new Socket("localhost", port)) {
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    for (int u = 0; u < uploadsPerClient; u++) {
+                        byte[] name = ("upload-" + client + "-" + u + ".bin").getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(Long.BYTES + name.length);
+                        out.writeLong(size);
+                        out.write(name);
+                        for (long sent = 0; sent < size; sent += block.length) {
+                            out.write(block, 0, (int) Math.min(block.length, size - sent));
+                        }
+                        out.flush();
+
+                        byte[] reply = new byte[in.readInt()];
+                        in.readFully(reply);
+                        if (client == 0) {
+                            System.out.println("  " + new String(reply, StandardCharsets.UTF_8));
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Upload client error: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        long nanos = System.nanoTime() - start;
 
-        public void connect(String host, int port, String message) throws IOException{
-            SocketChannel channel = SocketChannel.open();
-            channel.configureBlocking(false);
-            channel.connect(new InetSocketAddress(host, port));
+        long total = clients * uploadsPerClient * size;
+        System.out.printf("%s: %dMB in %dms = %dMB/s, server+client heap grew %dMB%n",
+                zeroCopy ? "transferFrom" : "ByteBuffer copy", total / (1024 * 1024), nanos / 1_000_000,
+                total * 1_000 / nanos, (memory.getHeapMemoryUsage().getUsed() - heapBefore) / (1024 * 1024));
+        System.out.println("  " + uploads);
+        System.out.print(server.stats());
 
-            // Wait for connection to complete
-            while (!channel.finishConnect()) {
-                System.out.println("Connecting....");
+        server.stop();
+        serverThread.join();
+        uploads.close();
+    }
+
+    // =============== CROSS-THREAD WRITES: WAKEUPS PER MESSAGE ===============
+    // Handlers offload every frame to a worker pool, and the workers post the responses back
+    // into the event loops. Clients pipeline bursts, so replies arrive at the loops in clumps.
+    public void crossThreadWriteDemo() throws InterruptedException {
+        System.out.println("=== Cross-Thread Writes (MPSC task queue, wakeup on empty → non-empty) ===\n");
+
+        int clients = 16;
+        int bursts = 1_000;
+        int linesPerBurst = 32;
+
+        long[] everyTask = measureCrossThreadWrites(false, 8192, clients, bursts, linesPerBurst);
+        long[] coalesced = measureCrossThreadWrites(true, 8193, clients, bursts, linesPerBurst);
+
+        System.out.println("\nResults (" + clients + " clients x " + bursts + " bursts of " + linesPerBurst + " lines):");
+        System.out.printf("  wakeup() per task:       %8d msg/s, %6.3f wakeups per message%n",
+                everyTask[0], (double) everyTask[1] / everyTask[2]);
+        System.out.printf("  wakeup() on empty queue: %8d msg/s, %6.3f wakeups per message%n",
+                coalesced[0], (double) coalesced[1] / coalesced[2]);
+    }
+
+    // Returns {messages per second, selector wakeups, tasks posted from other threads}
+    private long[] measureCrossThreadWrites(boolean coalescing, int port, int clients, int bursts, int linesPerBurst)
+            throws InterruptedException {
+        ExecutorService offload = Executors.newFixedThreadPool(4);
+        ChannelPipeline.Handler offloading = (context, frame) -> {
+            ChannelPipeline.LoopContext ctx = ChannelPipeline.require(context, ChannelPipeline.LoopContext.class);
+            ByteBuffer request = ByteBuffer.allocate(frame.remaining()).put(frame).flip();
+            offload.execute(() -> ctx.execute(() -> {
                 try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
+                    ctx.write(request);
+                } catch (IOException e) {
+                    System.err.println("Write failed: " + e.getMessage());
                 }
+            }));
+            return null;
+        };
+
+        NonBlockingServer server = new NonBlockingServer(2, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        server.setWakeupCoalescing(coalescing);
+        server.setPipeline(new ChannelPipeline(new ChannelPipeline.LineDecoder(1024),
+                new ChannelPipeline.LineEncoder()).addLast(offloading));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        byte[] burst = "ping\n".repeat(linesPerBurst).getBytes(StandardCharsets.UTF_8);
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < clients; i++) {
+            new Thread(() -> {
+                try (Socket socket = new Socket("localhost", port);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                    socket.setTcpNoDelay(true);
+                    for (int b = 0; b < bursts; b++) {
+                        socket.getOutputStream().write(burst);
+                        for (int line = 0; line < linesPerBurst; line++) {
+                            in.readLine();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Client error: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
 
-            System.out.println("✅ Connected to Server");
+        done.await();
+        long nanos = System.nanoTime() - start;
+        long[] result = {(long) clients * bursts * linesPerBurst * 1_000_000_000L / nanos,
+                server.getWakeups(), server.getPostedTasks()};
+        System.out.print((coalescing ? "coalesced" : "every task") + ":\n" + server.stats());
 
-            // Send message
-            ByteBuffer buffer = ByteBuffer.wrap(message.getBytes());
-            channel.write(buffer);
-            System.out.println("➡\uFE0F Sent: " + message);
+        try {
+            server.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        serverThread.join();
+        offload.shutdown();
+        return result;
+    }
+
+    // =============== RECONNECT STORM: SO_REUSEPORT ACCEPT SHARDING ===============
+    // Every client connects, does one round trip and disconnects, over and over:
+    // the server spends its time in accept(), not in read().
+    public void acceptShardingDemo() throws InterruptedException {
+        System.out.println("=== Reconnect Storm (one acceptor vs SO_REUSEPORT listeners) ===\n");
+
+        int clients = 32;
+        int connectionsPerClient = 300;
+        int shards = Math.max(2, Runtime.getRuntime().availableProcessors());
 
-            // Receive response
-            buffer = ByteBuffer.allocate(1024);
-            channel.read(buffer);
-            buffer.flip();
-            String response = StandardCharsets.UTF_8.decode(buffer).toString();
-            System.out.println("⬅\uFE0F Received: " + response);
+        long[] single = measureConnectionRate(1, 8197, clients, connectionsPerClient);
+        long[] sharded = measureConnectionRate(shards, 8198, clients, connectionsPerClient);
 
-            channel.close();
+        System.out.println("\nResults (" + clients + " clients x " + connectionsPerClient + " connections):");
+        System.out.printf("  1 acceptor:             %6d conn/s, p99 connect + first reply %6.2fms%n",
+                single[0], single[1] / 1_000_000.0);
+        System.out.printf("  %d SO_REUSEPORT shards:  %6d conn/s, p99 connect + first reply %6.2fms%n",
+                shards, sharded[0], sharded[1] / 1_000_000.0);
+    }
+
+    // Returns {connections per second, p99 connect-to-reply nanos}
+    private long[] measureConnectionRate(int shards, int port, int clients, int connectionsPerClient)
+            throws InterruptedException {
+        NonBlockingServer server = new NonBlockingServer(2, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        server.setAcceptorShards(shards);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        LatencyHistogram latency = new LatencyHistogram();
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
 
+        for (int i = 0; i < clients; i++) {
+            new Thread(() -> {
+                for (int c = 0; c < connectionsPerClient; c++) {
+                    long begin = System.nanoTime();
+                    try (Socket socket = new Socket("localhost", port)) {
+                        socket.getOutputStream().write("ping\n".getBytes(StandardCharsets.UTF_8));
+                        new BufferedReader(new InputStreamReader(socket.getInputStream())).readLine();
+                        latency.record(System.nanoTime() - begin);
+                    } catch (IOException e) {
+                        System.err.println("Client error: " + e.getMessage());
+                    }
+                }
+                done.countDown();
+            }).start();
         }
 
+        done.await();
+        long nanos = System.nanoTime() - start;
+        long[] result = {(long) clients * connectionsPerClient * 1_000_000_000L / nanos, latency.percentile(99)};
+        System.out.println((shards > 1 ? shards + " listeners" : "1 acceptor") + ": accepted per listener "
+                + Arrays.toString(server.getAccepted()));
+
+        try {
+            server.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        serverThread.join();
+        return result;
+    }
+
+    // =============== CPU-HEAVY HANDLERS: ORDERED OFFLOAD ===============
+    // Every request burns ~50µs of CPU (parsing, business logic). Clients pipeline numbered
+    // requests and check that the replies come back in the order they were sent.
+    public void orderedOffloadDemo() throws InterruptedException {
+        System.out.println("=== CPU-Heavy Handlers (on the loop vs plain pool vs serial lane per connection) ===\n");
+
+        int clients = 16;
+        int bursts = 200;
+        int requestsPerBurst = 16;
+        OffloadHandler.Work work = request -> {
+            long until = System.nanoTime() + 50_000;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            return request;
+        };
+
+        // At least 4 workers, so the plain pool really runs one connection's requests concurrently
+        ForkJoinPool pool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true); // FIFO: lanes are event-style tasks
+        ChannelPipeline.Handler onLoop = (ctx, frame) -> {
+            ctx.write(work.apply(frame));
+            return null;
+        };
+        OffloadHandler unordered = new OffloadHandler(work, pool, false, 32, 1024);
+        OffloadHandler ordered = new OffloadHandler(work, pool, true, 32, 1024);
+
+        long[] loopResult = measureOffload(onLoop, 8194, clients, bursts, requestsPerBurst);
+        long[] unorderedResult = measureOffload(unordered, 8195, clients, bursts, requestsPerBurst);
+        System.out.println("  " + unordered);
+        long[] orderedResult = measureOffload(ordered, 8196, clients, bursts, requestsPerBurst);
+        System.out.println("  " + ordered);
+        pool.shutdown();
+
+        System.out.println("\nResults (" + clients + " clients x " + bursts + " bursts of " + requestsPerBurst
+                + " requests, " + pool.getParallelism() + " pool threads):");
+        System.out.printf("  On the event loop:       %7d req/s, p99 burst %6.2fms, %5d replies out of order%n",
+                loopResult[0], loopResult[1] / 1_000_000.0, loopResult[2]);
+        System.out.printf("  Plain pool:              %7d req/s, p99 burst %6.2fms, %5d replies out of order%n",
+                unorderedResult[0], unorderedResult[1] / 1_000_000.0, unorderedResult[2]);
+        System.out.printf("  Serial lane per conn:    %7d req/s, p99 burst %6.2fms, %5d replies out of order%n",
+                orderedResult[0], orderedResult[1] / 1_000_000.0, orderedResult[2]);
+    }
+
+    // Returns {requests per second, p99 burst round trip in nanos, replies out of order}
+    private long[] measureOffload(ChannelPipeline.Handler handler, int port, int clients, int bursts,
+                                  int requestsPerBurst) throws InterruptedException {
+        NonBlockingServer server = new NonBlockingServer(2, NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        server.setPipeline(new ChannelPipeline(new ChannelPipeline.LineDecoder(1024),
+                new ChannelPipeline.LineEncoder()).addLast(handler));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger outOfOrder = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < clients; i++) {
+            new Thread(() -> {
+                try (Socket socket = new Socket("localhost", port);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                    socket.setTcpNoDelay(true);
+                    int sequence = 0;
+                    for (int b = 0; b < bursts; b++) {
+                        StringBuilder burst = new StringBuilder();
+                        for (int r = 0; r < requestsPerBurst; r++) {
+                            burst.append(sequence + r).append('\n');
+                        }
+                        long sent = System.nanoTime();
+                        socket.getOutputStream().write(burst.toString().getBytes(StandardCharsets.UTF_8));
+                        for (int r = 0; r < requestsPerBurst; r++) {
+                            if (Integer.parseInt(in.readLine()) != sequence + r) {
+                                outOfOrder.incrementAndGet();
+                            }
+                        }
+                        latency.record(System.nanoTime() - sent);
+                        sequence += requestsPerBurst;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Client error: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        done.await();
+        long nanos = System.nanoTime() - start;
+        long[] result = {(long) clients * bursts * requestsPerBurst * 1_000_000_000L / nanos,
+                latency.percentile(99), outOfOrder.get()};
+
+        try {
+            server.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        serverThread.join();
+        return result;
     }
 
     public static void comparisonDemo() {
@@ -194,6 +1944,17 @@ public class NIOSelectors {
 
     public void nioSelectorsImpl() {
         comparisonDemo();
+        // reactorComparison();
+        // slowClientDemo();
+        // framingDemo();
+        // writeBatchingDemo();
+        // idleTimeoutDemo();
+        // clientFanOutDemo();
+        // staticFileDemo();
+        // uploadDemo();
+        // crossThreadWriteDemo();
+        // orderedOffloadDemo();
+        // acceptShardingDemo();
 
         System.out.println("\n\n=== Starting Non-Blocking Server Demo ===");
         System.out.println("To test:");
@@ -0,0 +1,409 @@
+package nonBlockingIO;
+
+/*
+ * Client-side event loop: thousands of outbound connections on ONE Selector and ONE thread.
+
+    The old NonBlockingClient did:
+      connect() → while (!finishConnect()) sleep(100)   → 100ms lost per connection, one at a time
+      write()   → read() once                           → assumes one read = whole response
+
+    Here a connection is a small state machine driven by selector events:
+
+      connect() ──→ OP_CONNECT ──→ finishConnect() ──→ OP_READ ──→ frames ──→ futures
+          │                                                 ↑
+          └── timer wheel: not connected in time → fail     └── OP_WRITE only while output is queued
+
+    Requests on one connection are answered in order (like HTTP/1.1 pipelining), so the
+    response decoder just completes the oldest pending future. Many requests can be in
+    flight on one connection; the same ChannelPipeline decoders/encoders frame them.
+
+    Any thread may call connect() / request(): the work is queued to the loop, which
+    owns every channel. Futures complete ON the loop thread: callbacks must not block,
+    use the *Async variants for anything slow.
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NioClient implements AutoCloseable {
+    private static final int READ_BUFFER_SIZE = 4 * 1024;
+    private static final int MAX_GATHER = 64;
+
+    private final Selector selector;
+    private final ChannelPipeline.Decoder decoder;
+    private final ChannelPipeline.Encoder encoder;
+    private final MpscQueue<Runnable> tasks = new MpscQueue<>();
+    private final ArrayList<Connection> pendingFlushes = new ArrayList<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private final TimerWheel timers = new TimerWheel(10, 512); // 10ms ticks: connect timeouts are short
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long connectTimeoutNanos = 5_000_000_000L;
+
+    // Counters, written by the loop only
+    private volatile long connected;
+    private volatile long connectFailures;
+    private volatile long connectTimeouts;
+    private volatile long requests;
+    private volatile long responses;
+    private volatile long writeSyscalls;
+
+    private NioClient(ChannelPipeline.Decoder decoder, ChannelPipeline.Encoder encoder) throws IOException {
+        this.selector = Selector.open();
+        this.decoder = decoder;
+        this.encoder = encoder;
+        this.thread = new Thread(this::run, "nio-client");
+        thread.setDaemon(true);
+    }
+
+    // The loop thread starts once the client is fully constructed
+    public static NioClient start(ChannelPipeline.Decoder decoder, ChannelPipeline.Encoder encoder)
+            throws IOException {
+        NioClient client = new NioClient(decoder, encoder);
+        client.thread.start();
+        return client;
+    }
+
+    public void setConnectTimeout(long connectTimeoutMillis) {
+        this.connectTimeoutNanos = connectTimeoutMillis * 1_000_000;
+    }
+
+    // Completes once the TCP handshake is done; fails on refusal or after the connect timeout
+    public CompletableFuture<Connection> connect(InetSocketAddress address) {
+        CompletableFuture<Connection> future = new CompletableFuture<>();
+        execute(() -> open(address, future), future);
+        return future;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public long getConnectTimeouts() {
+        return connectTimeouts;
+    }
+
+    public long getWriteSyscalls() {
+        return writeSyscalls;
+    }
+
+    /*
+     * One outbound connection, attached to its SelectionKey.
+     * Everything except request() and close() runs on the loop thread.
+     */
+    public class Connection extends TimerWheel.Timeout {
+        private final SocketChannel channel;
+        private final CompletableFuture<Connection> connectFuture;
+        private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+        private final ArrayDeque<CompletableFuture<ByteBuffer>> pending = new ArrayDeque<>();
+        private SelectionKey key;
+        private ByteBuffer inbound = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private boolean flushScheduled;
+        private boolean closed;
+
+        private Connection(SocketChannel channel, CompletableFuture<Connection> connectFuture) {
+            this.channel = channel;
+            this.connectFuture = connectFuture;
+        }
+
+        // Frames the payload on the calling thread, then hands it to the loop.
+        // The future gets a copy of the response frame (without the framing).
+        public CompletableFuture<ByteBuffer> request(ByteBuffer payload) {
+            ByteBuffer framed = ByteBuffer.allocate(encoder.overhead() + payload.remaining());
+            encoder.writeHeader(payload.remaining(), framed);
+            framed.put(payload);
+            encoder.writeTrailer(framed);
+            framed.flip();
+
+            CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+            execute(() -> send(framed, future), future);
+            return future;
+        }
+
+        public void close() {
+            execute(() -> fail(new IOException("Connection closed")));
+        }
+
+        // OP_CONNECT fired: the handshake finished, successfully or not
+        private void finishConnect() throws IOException {
+            if (!channel.finishConnect()) {
+                return; // spurious wakeup, still connecting
+            }
+            timers.cancel(this);
+            key.interestOps(SelectionKey.OP_READ);
+            connected++;
+            connectFuture.complete(this);
+        }
+
+        @Override
+        protected void expire(long nowNanos) {
+            if (closed || connectFuture.isDone()) {
+                return;
+            }
+            connectTimeouts++;
+            fail(new SocketTimeoutException("Connect timed out after " + connectTimeoutNanos / 1_000_000 + "ms"));
+        }
+
+        private void send(ByteBuffer framed, CompletableFuture<ByteBuffer> future) {
+            if (closed) {
+                future.completeExceptionally(new IOException("Connection closed"));
+                return;
+            }
+            requests++;
+            pending.add(future);
+            outbound.add(framed);
+            // Requests queued in the same cycle go out together in one gathering write
+            if (!flushScheduled && (key.interestOps() & SelectionKey.OP_WRITE) == 0) {
+                flushScheduled = true;
+                pendingFlushes.add(this);
+            }
+        }
+
+        private void flush() throws IOException {
+            flushScheduled = false;
+            while (!outbound.isEmpty()) {
+                int count = 0;
+                long offered = 0;
+                for (ByteBuffer buffer : outbound) {
+                    gather[count++] = buffer;
+                    offered += buffer.remaining();
+                    if (count == gather.length) {
+                        break;
+                    }
+                }
+                long written = channel.write(gather, 0, count);
+                writeSyscalls++;
+                Arrays.fill(gather, 0, count, null);
+
+                ByteBuffer head;
+                while ((head = outbound.peek()) != null && !head.hasRemaining()) {
+                    outbound.poll();
+                }
+                if (written < offered) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE); // socket full
+                    return;
+                }
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+
+        // One read may hold half a response or several: decode until the decoder needs more bytes
+        private void read() throws IOException {
+            if (channel.read(inbound) == -1) {
+                throw new IOException("Connection closed by server");
+            }
+            inbound.flip();
+            ByteBuffer frame;
+            while ((frame = decoder.decode(inbound)) != null) {
+                CompletableFuture<ByteBuffer> future = pending.poll();
+                if (future == null) {
+                    throw new IOException("Response without a request");
+                }
+                ByteBuffer response = ByteBuffer.allocate(frame.remaining()).put(frame).flip();
+                responses++;
+                future.complete(response);
+            }
+
+            if (inbound.position() == 0 && inbound.limit() == inbound.capacity()) {
+                // Partial frame fills the whole buffer: grow (the decoder enforces the max frame size)
+                ByteBuffer bigger = ByteBuffer.allocate(inbound.capacity() * 2);
+                inbound = bigger.put(inbound);
+            } else {
+                inbound.compact();
+            }
+        }
+
+        private void fail(IOException cause) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            timers.cancel(this);
+            if (!connectFuture.isDone()) {
+                connectFailures++;
+                connectFuture.completeExceptionally(cause);
+            }
+            CompletableFuture<ByteBuffer> future;
+            while ((future = pending.poll()) != null) {
+                future.completeExceptionally(cause);
+            }
+            outbound.clear();
+            if (key != null) {
+                key.cancel();
+                connections.decrementAndGet();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void open(InetSocketAddress address, CompletableFuture<Connection> future) {
+        if (!running) {
+            future.completeExceptionally(new IOException("Client closed"));
+            return;
+        }
+        Connection connection = null;
+        try {
+            SocketChannel channel = SocketChannel.open();
+            connection = new Connection(channel, future);
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            if (channel.connect(address)) {
+                // Loopback connects can finish immediately
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections.incrementAndGet();
+                connected++;
+                future.complete(connection);
+            } else {
+                connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                connections.incrementAndGet();
+                timers.schedule(connection, connectTimeoutNanos);
+            }
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.fail(e);
+            } else {
+                connectFailures++;
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void execute(Runnable task) {
+        // Only the first task into an empty queue needs to wake the selector
+        if (tasks.offer(task) && Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    // For work that completes a caller's future: once the client is closed, the future fails right away
+    private void execute(Runnable task, CompletableFuture<?> future) {
+        if (running) {
+            execute(task);
+        }
+        // Checked again after the offer: the loop may have drained its queue for the last time meanwhile.
+        // If the loop still gets to the task, the task's own completion is a no-op.
+        if (!running) {
+            future.completeExceptionally(new IOException("Client closed"));
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                long timeoutNanos = timers.nanosUntilNextTick(System.nanoTime());
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else if (timeoutNanos < 0) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, (timeoutNanos + 999_999) / 1_000_000));
+                }
+                runTasks();
+
+                Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+                while (keyIterator.hasNext()) {
+                    SelectionKey key = keyIterator.next();
+                    keyIterator.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.finishConnect();
+                            continue;
+                        }
+                        if (key.isWritable()) {
+                            connection.flush();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    } catch (IOException e) {
+                        connection.fail(e);
+                    }
+                }
+
+                flushPending();
+                timers.advance(System.nanoTime());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Client task failed: " + e);
+            }
+        }
+        if (!tasks.isEmpty()) {
+            Thread.yield(); // a producer is between its getAndSet and the link
+        }
+    }
+
+    private void flushPending() {
+        for (Connection connection : pendingFlushes) {
+            if (!connection.flushScheduled || connection.closed) {
+                continue;
+            }
+            try {
+                connection.flush();
+            } catch (IOException e) {
+                connection.fail(e);
+            }
+        }
+        pendingFlushes.clear();
+    }
+
+    private void closeAll() {
+        IOException cause = new IOException("Client closed");
+        for (SelectionKey key : selector.keys()) {
+            ((Connection) key.attachment()).fail(cause);
+        }
+        runTasks(); // requests queued after the loop stopped fail right away
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // the loop still shuts down, we just don't wait for it
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("connections=%d, connected=%d, connectFailures=%d (timeouts %d), "
+                        + "requests=%d, responses=%d, writes=%d",
+                connections.get(), connected, connectFailures, connectTimeouts,
+                requests, responses, writeSyscalls);
+    }
+}
@@ -0,0 +1,221 @@
+package nonBlockingIO;
+
+/*
+ * Runs CPU-heavy request handling off the event loop without reordering responses.
+
+    Work done inside handleRead stalls every connection on that selector. Handing each frame
+    to a pool fixes that but lets the replies of one connection overtake each other:
+
+      on the loop:      loop ── parse a1 ── parse a2 ── parse b1 ──→   B waits for all of A
+      plain pool:       a1 → worker 1 ┐
+                        a2 → worker 2 ┴→ "a2" may be written before "a1"
+      serial per conn:  a1 a2 → lane A → worker 1 → a1, a2  (in order)
+                        b1    → lane B → worker 2 → b1      (in parallel with A)
+
+    Each connection gets a SerialExecutor lane on the shared ForkJoinPool. Replies produced
+    during one drain are collected and handed back to the event loop as one task, so a
+    pipelined burst of N requests costs one pool submission and one loop wakeup, not N of each.
+
+    If a connection runs more than highWater requests ahead of its lane, reading is paused
+    (TCP pushes back on the client) until the lane catches up to lowWater.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OffloadHandler implements ChannelPipeline.Handler {
+
+    // Runs on a pool thread: must not touch the connection, only turn a request into a reply
+    @FunctionalInterface
+    public interface Work {
+        ByteBuffer apply(ByteBuffer request) throws IOException;
+    }
+
+    private final Work work;
+    private final Executor pool;
+    private final boolean ordered;
+    private final int maxBatch;
+    private final int highWater;
+    private final int lowWater;
+    private final Map<ChannelPipeline.Context, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder replyTasks = new LongAdder();
+    private final LongAdder readPauses = new LongAdder();
+    private final LongAdder closedTasksRun = new LongAdder();
+    private final LongAdder closedDrains = new LongAdder();
+
+    // ordered = false submits every frame to the pool on its own (the reordering baseline)
+    public OffloadHandler(Work work, Executor pool, boolean ordered, int maxBatch, int highWater) {
+        this.work = work;
+        this.pool = pool;
+        this.ordered = ordered;
+        this.maxBatch = maxBatch;
+        this.highWater = highWater;
+        this.lowWater = highWater / 2;
+    }
+
+    // Event loop thread
+    @Override
+    public ByteBuffer onFrame(ChannelPipeline.Context ctx, ByteBuffer frame) throws IOException {
+        Lane existing = lanes.get(ctx);
+        Lane lane = existing != null ? existing : open(ctx);
+        ByteBuffer request = ByteBuffer.allocate(frame.remaining()).put(frame).flip(); // frame is a reused slice
+        requests.increment();
+        if (lane.queued.incrementAndGet() >= highWater && !lane.paused) {
+            lane.paused = true;
+            readPauses.increment();
+            lane.ctx.setAutoRead(false);
+        }
+
+        if (ordered) {
+            lane.executor.execute(() -> lane.process(request));
+        } else {
+            pool.execute(() -> lane.processUnordered(request));
+        }
+        return null; // replies come back through ctx.execute
+    }
+
+    // First frame of a connection; only its own loop adds its lane
+    private Lane open(ChannelPipeline.Context ctx) throws IOException {
+        Lane lane = new Lane(ChannelPipeline.require(ctx, ChannelPipeline.LoopContext.class));
+        lanes.put(ctx, lane);
+        return lane;
+    }
+
+    @Override
+    public void onClose(ChannelPipeline.Context ctx) {
+        Lane lane = lanes.remove(ctx);
+        if (lane != null) {
+            lane.closed = true;
+            closedTasksRun.add(lane.executor.getTasksRun());
+            closedDrains.add(lane.executor.getDrains());
+        }
+    }
+
+    private class Lane {
+        private final ChannelPipeline.LoopContext ctx;
+        private final SerialExecutor executor;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final List<ByteBuffer> replies = new ArrayList<>(); // lane tasks only
+        private volatile boolean paused; // written on the event loop only
+        private volatile boolean closed;
+
+        Lane(ChannelPipeline.LoopContext ctx) {
+            this.ctx = ctx;
+            this.executor = new SerialExecutor(pool, maxBatch);
+        }
+
+        // Lane task: one request at a time, in arrival order
+        void process(ByteBuffer request) {
+            if (!apply(request)) {
+                return;
+            }
+            queued.decrementAndGet();
+            // Hand the replies over once the lane runs dry, or a batch is full
+            if (!executor.hasPending() || replies.size() >= maxBatch) {
+                List<ByteBuffer> batch = new ArrayList<>(replies);
+                replies.clear();
+                post(batch);
+            }
+        }
+
+        // Any pool thread, concurrently with other requests of the same connection
+        void processUnordered(ByteBuffer request) {
+            try {
+                ByteBuffer reply = work.apply(request);
+                queued.decrementAndGet();
+                post(List.of(reply));
+            } catch (IOException | RuntimeException e) {
+                queued.decrementAndGet();
+                fail(e);
+            }
+        }
+
+        private boolean apply(ByteBuffer request) {
+            if (closed) {
+                return false;
+            }
+            try {
+                replies.add(work.apply(request));
+                return true;
+            } catch (IOException | RuntimeException e) {
+                queued.decrementAndGet();
+                // The requests before this one still get their replies, ahead of the close
+                if (!replies.isEmpty()) {
+                    List<ByteBuffer> batch = new ArrayList<>(replies);
+                    replies.clear();
+                    post(batch);
+                }
+                fail(e);
+                return false;
+            }
+        }
+
+        private void post(List<ByteBuffer> batch) {
+            replyTasks.increment();
+            ctx.execute(() -> {
+                try {
+                    for (ByteBuffer reply : batch) {
+                        ctx.write(reply);
+                    }
+                    if (paused && queued.get() <= lowWater) {
+                        paused = false;
+                        ctx.setAutoRead(true);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Offloaded reply failed: " + e.getMessage());
+                    closeQuietly();
+                }
+            });
+        }
+
+        private void fail(Exception e) {
+            System.err.println("Offloaded request failed: " + e);
+            closed = true;
+            ctx.execute(this::closeAfterReplies);
+        }
+
+        // Replies posted before the failure are queued on the connection: let them out first if it can
+        private void closeAfterReplies() {
+            if (!(ctx instanceof ChannelPipeline.FileContext files)) {
+                closeQuietly();
+                return;
+            }
+            try {
+                files.closeWhenFlushed();
+            } catch (IOException e) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                ctx.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        long tasksRun = closedTasksRun.sum();
+        long drains = closedDrains.sum();
+        for (Lane lane : lanes.values()) {
+            tasksRun += lane.executor.getTasksRun();
+            drains += lane.executor.getDrains();
+        }
+        long posted = replyTasks.sum();
+        return String.format("requests=%d, %s, lane drains=%d (%.1f requests each), reply tasks=%d (%.1f replies each), "
+                        + "readPauses=%d", requests.sum(), ordered ? "ordered" : "unordered", drains,
+                drains == 0 ? 0.0 : (double) tasksRun / drains, posted,
+                posted == 0 ? 0.0 : (double) requests.sum() / posted, readPauses.sum());
+    }
+}
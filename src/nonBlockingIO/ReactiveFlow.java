@@ -0,0 +1,918 @@
+package nonBlockingIO;
+
+/*
+ * A small reactive library on java.util.concurrent.Flow (the JDK's Reactive Streams interfaces).
+
+    The contract in one picture:
+
+      Publisher ──onSubscribe(subscription)──→ Subscriber
+      Publisher ←──────── request(n) ───────── Subscriber     "I can take n more"
+      Publisher ──onNext × at most n ────────→ Subscriber
+      Publisher ──onComplete / onError ──────→ Subscriber
+
+    Nothing is pushed without demand → a slow consumer automatically slows the producer.
+    That is the whole point of WebFlux/Reactor over "fire callbacks at an executor".
+
+    Operators are Subscriber + Subscription pairs that sit in the middle of the chain and
+    translate demand:
+
+      range ─→ flatMap(256) ─→ publishOn(loop) ─→ buffer(50) ─→ subscribe
+               asks for 256     asks for prefetch   asks for 50 × n
+               inners at once   items ahead
+
+    Every operator that can be called from several threads at once (flatMap, publishOn,
+    the sources) serializes its emissions with a "work in progress" counter (wip):
+    whichever thread increments it from 0 drains, the others just leave a note.
+
+    FlowHandler plugs a Flux into NonBlockingServer: frames become a Publisher per connection
+    and, when the chain stops requesting, the connection stops reading (autoRead off).
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+public class ReactiveFlow {
+
+    // ============ DEMAND ARITHMETIC ============
+    // Demand saturates at Long.MAX_VALUE ("unbounded") instead of overflowing
+
+    // Returns the demand before the addition
+    static long addDemand(AtomicLong requested, long n) {
+        while (true) {
+            long current = requested.get();
+            if (current == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            long updated = current + n;
+            if (updated < 0) {
+                updated = Long.MAX_VALUE;
+            }
+            if (requested.compareAndSet(current, updated)) {
+                return current;
+            }
+        }
+    }
+
+    static long produced(AtomicLong requested, long n) {
+        return requested.get() == Long.MAX_VALUE ? Long.MAX_VALUE : requested.addAndGet(-n);
+    }
+
+    static long multiplyCap(long a, long b) {
+        long product = a * b;
+        return a != 0 && (product / a != b || product < 0) ? Long.MAX_VALUE : product;
+    }
+
+    // ============ FLUX: Publisher + operators ============
+    public abstract static class Flux<T> implements Flow.Publisher<T> {
+
+        public static <T> Flux<T> fromIterable(Iterable<T> items) {
+            return new Flux<>() {
+                @Override
+                public void subscribe(Flow.Subscriber<? super T> subscriber) {
+                    subscriber.onSubscribe(new IteratorSubscription<>(subscriber, items.iterator()));
+                }
+            };
+        }
+
+        public static Flux<Integer> range(int start, int count) {
+            return fromIterable(() -> IntStream.range(start, start + count).iterator());
+        }
+
+        // One value after a delay: a simulated non-blocking I/O call (DB query, HTTP call...)
+        public static <T> Flux<T> delayed(T value, long delayMillis, TimerScheduler timers) {
+            return new Flux<>() {
+                @Override
+                public void subscribe(Flow.Subscriber<? super T> subscriber) {
+                    subscriber.onSubscribe(new DelayedSubscription<>(subscriber, value, delayMillis, timers));
+                }
+            };
+        }
+
+        public static <T> Flux<T> from(Flow.Publisher<T> publisher) {
+            if (publisher instanceof Flux<T> flux) {
+                return flux;
+            }
+            return new Flux<>() {
+                @Override
+                public void subscribe(Flow.Subscriber<? super T> subscriber) {
+                    publisher.subscribe(subscriber);
+                }
+            };
+        }
+
+        public <R> Flux<R> map(Function<? super T, ? extends R> mapper) {
+            Flux<T> upstream = this;
+            return new Flux<>() {
+                @Override
+                public void subscribe(Flow.Subscriber<? super R> subscriber) {
+                    upstream.subscribe(new MapSubscriber<>(subscriber, mapper));
+                }
+            };
+        }
+
+        // At most maxConcurrency inner publishers are subscribed at the same time
+        public <R> Flux<R> flatMap(Function<? super T, ? extends Flow.Publisher<? extends R>> mapper,
+                                   int maxConcurrency) {
+            Flux<T> upstream = this;
+            return new Flux<>() {
+                @Override
+                public void subscribe(Flow.Subscriber<? super R> subscriber) {
+                    upstream.subscribe(new FlatMapSubscriber<>(subscriber, mapper, maxConcurrency));
+                }
+            };
+        }
+
+        // Downstream signals are delivered on the executor, with at most prefetch items in between
+        public Flux<T> publishOn(Executor executor, int prefetch) {
+            Flux<T> upstream = this;
+            return new Flux<>() {
+                @Override
+                public void subscribe(Flow.Subscriber<? super T> subscriber) {
+                    upstream.subscribe(new PublishOnSubscriber<>(subscriber, executor, prefetch));
+                }
+            };
+        }
+
+        // Batching: groups of size items (the last one may be shorter)
+        public Flux<List<T>> buffer(int size) {
+            Flux<T> upstream = this;
+            return new Flux<>() {
+                @Override
+                public void subscribe(Flow.Subscriber<? super List<T>> subscriber) {
+                    upstream.subscribe(new BufferSubscriber<>(subscriber, size));
+                }
+            };
+        }
+
+        // Terminal: consumes with bounded demand; the future completes with the stream
+        public CompletableFuture<Void> subscribe(Consumer<? super T> consumer, int prefetch) {
+            ConsumerSubscriber<T> subscriber = new ConsumerSubscriber<>(consumer, prefetch);
+            subscribe(subscriber);
+            return subscriber.done;
+        }
+    }
+
+    // ============ SOURCES ============
+    private static class IteratorSubscription<T> implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Iterator<T> iterator;
+        private final AtomicLong requested = new AtomicLong();
+        private volatile boolean cancelled;
+
+        IteratorSubscription(Flow.Subscriber<? super T> subscriber, Iterator<T> iterator) {
+            this.subscriber = subscriber;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelled = true;
+                subscriber.onError(new IllegalArgumentException("request must be positive: " + n));
+                return;
+            }
+            // Only the thread that takes demand from 0 emits; the others just add to it
+            if (addDemand(requested, n) == 0) {
+                emit();
+            }
+        }
+
+        private void emit() {
+            long emitted = 0;
+            long demand = requested.get();
+            while (true) {
+                while (emitted != demand) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (!iterator.hasNext()) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+                if (!iterator.hasNext() && !cancelled) {
+                    cancelled = true;
+                    subscriber.onComplete(); // complete without waiting for more demand
+                    return;
+                }
+                demand = requested.get();
+                if (demand == emitted) {
+                    demand = produced(requested, emitted);
+                    if (demand == 0) {
+                        return;
+                    }
+                    emitted = 0;
+                }
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static class DelayedSubscription<T> implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final T value;
+        private final long delayMillis;
+        private final TimerScheduler timers;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile TimerScheduler.Timer timer;
+
+        DelayedSubscription(Flow.Subscriber<? super T> subscriber, T value, long delayMillis, TimerScheduler timers) {
+            this.subscriber = subscriber;
+            this.value = value;
+            this.delayMillis = delayMillis;
+            this.timers = timers;
+        }
+
+        @Override
+        public void request(long n) {
+            // The "I/O" only starts once somebody wants the result
+            if (n > 0 && started.compareAndSet(false, true)) {
+                timer = timers.schedule(() -> {
+                    subscriber.onNext(value);
+                    subscriber.onComplete();
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            TimerScheduler.Timer scheduled = timer;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+    }
+
+    // ============ MAP ============
+    private static class MapSubscriber<T, R> implements Flow.Subscriber<T> {
+        private final Flow.Subscriber<? super R> downstream;
+        private final Function<? super T, ? extends R> mapper;
+        private Flow.Subscription upstream;
+        private boolean done;
+
+        MapSubscriber(Flow.Subscriber<? super R> downstream, Function<? super T, ? extends R> mapper) {
+            this.downstream = downstream;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(subscription); // 1:1, demand passes straight through
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done) {
+                return;
+            }
+            R mapped;
+            try {
+                mapped = mapper.apply(item);
+            } catch (RuntimeException e) {
+                upstream.cancel();
+                onError(e);
+                return;
+            }
+            downstream.onNext(mapped);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done) {
+                done = true;
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done) {
+                done = true;
+                downstream.onComplete();
+            }
+        }
+    }
+
+    // ============ FLAT MAP (bounded concurrency) ============
+    /*
+     *   upstream ──request(maxConcurrency)──→ at most maxConcurrency inners alive
+     *   inner done → request(1) more from upstream
+     *   every inner has a small queue; drain() moves values downstream only while there is demand,
+     *   and asks each inner for more as its queue empties
+     */
+    private static class FlatMapSubscriber<T, R> implements Flow.Subscriber<T>, Flow.Subscription {
+        private static final int INNER_PREFETCH = 32;
+
+        private final Flow.Subscriber<? super R> downstream;
+        private final Function<? super T, ? extends Flow.Publisher<? extends R>> mapper;
+        private final int maxConcurrency;
+        private final Queue<Inner> inners = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>(); // first error wins
+        private Flow.Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile boolean cancelled;
+        private boolean terminated; // drain thread only
+
+        FlatMapSubscriber(Flow.Subscriber<? super R> downstream,
+                          Function<? super T, ? extends Flow.Publisher<? extends R>> mapper, int maxConcurrency) {
+            this.downstream = downstream;
+            this.mapper = mapper;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            subscription.request(maxConcurrency);
+        }
+
+        @Override
+        public void onNext(T item) {
+            Flow.Publisher<? extends R> publisher;
+            try {
+                publisher = mapper.apply(item);
+            } catch (RuntimeException e) {
+                upstream.cancel();
+                onError(e);
+                return;
+            }
+            Inner inner = new Inner();
+            inners.add(inner); // before subscribing: the inner may emit synchronously
+            publisher.subscribe(inner);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.compareAndSet(null, throwable);
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            addDemand(requested, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+            for (Inner inner : inners) {
+                inner.cancel();
+            }
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return; // another thread is draining and will see our change
+            }
+            int missed = 1;
+            do {
+                if (cancelled || terminated) {
+                    return;
+                }
+                Throwable failure = error.get();
+                if (failure != null) {
+                    terminated = true;
+                    cancel();
+                    downstream.onError(failure);
+                    return;
+                }
+
+                long demand = requested.get();
+                long emitted = 0;
+                for (Iterator<Inner> it = inners.iterator(); it.hasNext(); ) {
+                    Inner inner = it.next();
+                    R value;
+                    while (emitted != demand && (value = inner.queue.poll()) != null) {
+                        downstream.onNext(value);
+                        emitted++;
+                        inner.consumedOne();
+                    }
+                    if (inner.done && inner.queue.isEmpty()) {
+                        it.remove();
+                        if (!upstreamDone) {
+                            upstream.request(1); // a slot is free: let the next inner in
+                        }
+                    }
+                }
+                if (emitted != 0) {
+                    produced(requested, emitted);
+                }
+
+                if (upstreamDone && inners.isEmpty()) {
+                    terminated = true;
+                    downstream.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private class Inner implements Flow.Subscriber<R> {
+            private final Queue<R> queue = new ConcurrentLinkedQueue<>();
+            private volatile Flow.Subscription subscription;
+            private volatile boolean done;
+            private int consumed; // drain thread only
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(INNER_PREFETCH);
+            }
+
+            @Override
+            public void onNext(R item) {
+                queue.add(item);
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.compareAndSet(null, throwable);
+                done = true;
+                drain();
+            }
+
+            @Override
+            public void onComplete() {
+                done = true;
+                drain();
+            }
+
+            void consumedOne() {
+                if (++consumed == INNER_PREFETCH / 2) {
+                    consumed = 0;
+                    subscription.request(INNER_PREFETCH / 2); // refill in halves, not one by one
+                }
+            }
+
+            void cancel() {
+                Flow.Subscription current = subscription;
+                if (current != null) {
+                    current.cancel();
+                }
+            }
+        }
+    }
+
+    // ============ PUBLISH ON (thread hop with a bounded queue) ============
+    /*
+     *   producer thread: onNext → queue (never more than prefetch items, because that is all we requested)
+     *   executor thread: queue → downstream.onNext, then request(limit) more once 3/4 were consumed
+     */
+    private static class PublishOnSubscriber<T> implements Flow.Subscriber<T>, Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> downstream;
+        private final Executor executor;
+        private final int prefetch;
+        private final int limit;
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private Flow.Subscription upstream;
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private int consumed; // executor thread only
+
+        PublishOnSubscriber(Flow.Subscriber<? super T> downstream, Executor executor, int prefetch) {
+            this.downstream = downstream;
+            this.executor = executor;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+            subscription.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            queue.add(item);
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            addDemand(requested, n);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled) {
+                    boolean finished = done;
+                    T item = queue.poll();
+                    if (item == null) {
+                        if (finished) {
+                            terminate();
+                            return;
+                        }
+                        break;
+                    }
+                    downstream.onNext(item);
+                    emitted++;
+                    if (++consumed == limit) {
+                        consumed = 0;
+                        upstream.request(limit);
+                    }
+                }
+                if (cancelled) {
+                    queue.clear();
+                    return;
+                }
+                if (done && queue.isEmpty()) {
+                    terminate();
+                    return;
+                }
+                if (emitted != 0) {
+                    produced(requested, emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void terminate() {
+            cancelled = true; // nothing more after a terminal signal
+            Throwable failure = error;
+            if (failure != null) {
+                downstream.onError(failure);
+            } else {
+                downstream.onComplete();
+            }
+        }
+    }
+
+    // ============ BUFFER (batching) ============
+    private static class BufferSubscriber<T> implements Flow.Subscriber<T>, Flow.Subscription {
+        private final Flow.Subscriber<? super List<T>> downstream;
+        private final int size;
+        private Flow.Subscription upstream;
+        private List<T> current;
+
+        BufferSubscriber(Flow.Subscriber<? super List<T>> downstream, int size) {
+            this.downstream = downstream;
+            this.size = size;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        // n batches downstream = n × size items upstream
+        @Override
+        public void request(long n) {
+            upstream.request(multiplyCap(n, size));
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (current == null) {
+                current = new ArrayList<>(size);
+            }
+            current.add(item);
+            if (current.size() == size) {
+                List<T> batch = current;
+                current = null;
+                downstream.onNext(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            current = null;
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (current != null) {
+                downstream.onNext(current); // the short last batch
+                current = null;
+            }
+            downstream.onComplete();
+        }
+    }
+
+    // ============ TERMINAL SUBSCRIBER ============
+    private static class ConsumerSubscriber<T> implements Flow.Subscriber<T> {
+        private final Consumer<? super T> consumer;
+        private final int prefetch;
+        private final int limit;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private int consumed;
+
+        ConsumerSubscriber(Consumer<? super T> consumer, int prefetch) {
+            this.consumer = consumer;
+            this.prefetch = prefetch;
+            this.limit = Math.max(1, prefetch - (prefetch >> 2));
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done.isDone()) {
+                return;
+            }
+            try {
+                consumer.accept(item);
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                done.completeExceptionally(e);
+                return;
+            }
+            if (++consumed == limit) {
+                consumed = 0;
+                subscription.request(limit);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    // =============== NIO SERVER INTEGRATION ===============
+    /*
+     * Turns each connection's frames into a Flux and writes whatever the chain emits back:
+     *
+     *   socket → decoder → frame ─→ ConnectionFlux ─→ [chain: publishOn, map, flatMap ...] ─→ ctx.write
+     *                                     │
+     *                      queue > highWater: ctx.setAutoRead(false)   → server stops reading,
+     *                      queue ≤ lowWater:  ctx.setAutoRead(true)       TCP window fills, client blocks
+     *
+     * So a slow stage at the end of the chain throttles the socket at the beginning.
+     * Frames are copied (they are slices of the connection's reused read buffer).
+     */
+    public static class FlowHandler implements ChannelPipeline.Handler {
+        private final Function<Flux<ByteBuffer>, Flow.Publisher<ByteBuffer>> chain;
+        private final int highWater;
+        private final int lowWater;
+        private final Map<ChannelPipeline.Context, ConnectionFlux> connections = new ConcurrentHashMap<>();
+        private final AtomicInteger maxQueued = new AtomicInteger();
+
+        public FlowHandler(Function<Flux<ByteBuffer>, Flow.Publisher<ByteBuffer>> chain, int highWater) {
+            this.chain = chain;
+            this.highWater = highWater;
+            this.lowWater = highWater / 2;
+        }
+
+        // Largest number of frames any connection had waiting for the chain
+        public int getMaxQueued() {
+            return maxQueued.get();
+        }
+
+        @Override
+        public ByteBuffer onFrame(ChannelPipeline.Context ctx, ByteBuffer frame) throws IOException {
+            ConnectionFlux existing = connections.get(ctx);
+            ConnectionFlux flux = existing != null ? existing : open(ctx);
+            flux.offer(ByteBuffer.allocate(frame.remaining()).put(frame).flip());
+            return null; // responses come back through the chain
+        }
+
+        @Override
+        public void onClose(ChannelPipeline.Context ctx) {
+            ConnectionFlux flux = connections.remove(ctx);
+            if (flux != null) {
+                flux.complete();
+            }
+        }
+
+        // First frame of a connection; only its own loop adds its flux
+        private ConnectionFlux open(ChannelPipeline.Context ctx) throws IOException {
+            ChannelPipeline.LoopContext loop = ChannelPipeline.require(ctx, ChannelPipeline.LoopContext.class);
+            ConnectionFlux flux = new ConnectionFlux(loop);
+            connections.put(ctx, flux);
+            chain.apply(flux).subscribe(new WriteSubscriber(loop));
+            return flux;
+        }
+
+        // Inbound side: frames offered by the event loop, emitted on demand
+        private class ConnectionFlux extends Flux<ByteBuffer> implements Flow.Subscription {
+            private final ChannelPipeline.LoopContext ctx;
+            private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+            private final AtomicInteger queued = new AtomicInteger();
+            private final AtomicLong requested = new AtomicLong();
+            private final AtomicInteger wip = new AtomicInteger();
+            private final AtomicBoolean resumePosted = new AtomicBoolean();
+            private volatile Flow.Subscriber<? super ByteBuffer> subscriber;
+            private volatile boolean paused; // written on the event loop only
+            private volatile boolean done;
+            private volatile boolean cancelled;
+
+            ConnectionFlux(ChannelPipeline.LoopContext ctx) {
+                this.ctx = ctx;
+            }
+
+            @Override
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+                this.subscriber = subscriber;
+                subscriber.onSubscribe(this);
+            }
+
+            // Event loop thread
+            void offer(ByteBuffer frame) {
+                queue.add(frame);
+                int size = queued.incrementAndGet();
+                maxQueued.accumulateAndGet(size, Math::max);
+                if (size >= highWater && !paused) {
+                    paused = true;
+                    ctx.setAutoRead(false);
+                }
+                drain();
+            }
+
+            void complete() {
+                done = true;
+                drain();
+            }
+
+            @Override
+            public void request(long n) {
+                addDemand(requested, n);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+
+            private void drain() {
+                if (subscriber == null || wip.getAndIncrement() != 0) {
+                    return;
+                }
+                int missed = 1;
+                do {
+                    long demand = requested.get();
+                    long emitted = 0;
+                    ByteBuffer frame;
+                    while (emitted != demand && !cancelled && (frame = queue.poll()) != null) {
+                        queued.decrementAndGet();
+                        subscriber.onNext(frame);
+                        emitted++;
+                    }
+                    if (emitted != 0) {
+                        produced(requested, emitted);
+                    }
+                    if (paused && queued.get() <= lowWater) {
+                        resumeReading();
+                    }
+                    if (done && queue.isEmpty() && !cancelled) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    missed = wip.addAndGet(-missed);
+                } while (missed != 0);
+            }
+
+            // Demand arrives on chain threads, but autoRead belongs to the event loop
+            private void resumeReading() {
+                if (resumePosted.compareAndSet(false, true)) {
+                    ctx.execute(() -> {
+                        resumePosted.set(false);
+                        if (paused && queued.get() <= lowWater) {
+                            paused = false;
+                            ctx.setAutoRead(true);
+                        }
+                    });
+                }
+            }
+        }
+
+        // Outbound side: writes on the event loop, asks for the next response only after the write
+        private static class WriteSubscriber implements Flow.Subscriber<ByteBuffer> {
+            private static final int IN_FLIGHT = 16;
+
+            private final ChannelPipeline.LoopContext ctx;
+            private Flow.Subscription subscription;
+
+            WriteSubscriber(ChannelPipeline.LoopContext ctx) {
+                this.ctx = ctx;
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(IN_FLIGHT);
+            }
+
+            @Override
+            public void onNext(ByteBuffer response) {
+                ctx.execute(() -> {
+                    try {
+                        ctx.write(response);
+                    } catch (IOException e) {
+                        closeQuietly();
+                    }
+                    subscription.request(1);
+                });
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                System.err.println("Reactive chain failed: " + throwable);
+                ctx.execute(this::closeQuietly);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+
+            private void closeQuietly() {
+                try {
+                    ctx.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+}
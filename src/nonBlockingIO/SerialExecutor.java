@@ -0,0 +1,83 @@
+package nonBlockingIO;
+
+/*
+ * Serial executor: an ordered lane on top of a shared pool (one lane per connection).
+
+    Connection A: a1 a2 a3 ─┐                 ┌→ worker 1: a1 a2 a3   (a lane runs on one worker at a time,
+    Connection B: b1 b2    ─┼→ ForkJoinPool ──┼→ worker 2: b1 b2       in submission order)
+    Connection C: c1       ─┘                 └→ worker 3: c1
+
+    Tasks of one lane never overlap and never reorder; different lanes run in parallel
+    and idle workers steal whole lane drains from busy ones.
+
+    A lane is scheduled on the pool only when it goes idle → busy (one CAS), and one
+    scheduling then drains up to maxBatch tasks. A connection that pipelines 32 requests
+    costs one pool submission, not 32. After maxBatch the lane re-submits itself, so a
+    chatty connection takes turns with the others instead of keeping a worker.
+ */
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SerialExecutor implements Executor {
+    private final Executor pool;
+    private final int maxBatch;
+    private final MpscQueue<Runnable> tasks = new MpscQueue<>(); // one drainer at a time = single consumer
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Written by the draining worker only (one at a time)
+    private volatile long tasksRun;
+    private volatile long drains;
+
+    public SerialExecutor(Executor pool, int maxBatch) {
+        this.pool = pool;
+        this.maxBatch = maxBatch;
+    }
+
+    // Any thread
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        if (scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+
+    // True while tasks are waiting behind the one currently running
+    public boolean hasPending() {
+        return !tasks.isEmpty();
+    }
+
+    public long getTasksRun() {
+        return tasksRun;
+    }
+
+    public long getDrains() {
+        return drains;
+    }
+
+    private void drain() {
+        drains++;
+        int ran = 0;
+        Runnable task;
+        while (ran < maxBatch && (task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Serial task failed: " + e);
+            }
+            ran++;
+        }
+        tasksRun += ran;
+
+        if (!tasks.isEmpty()) {
+            pool.execute(this::drain); // batch used up (or a task still being linked): go to the back
+            return;
+        }
+        scheduled.set(false);
+        // A task offered after the isEmpty() check saw scheduled == true and did not submit
+        if (!tasks.isEmpty() && scheduled.compareAndSet(false, true)) {
+            pool.execute(this::drain);
+        }
+    }
+}
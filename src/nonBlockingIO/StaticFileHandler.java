@@ -0,0 +1,209 @@
+package nonBlockingIO;
+
+/*
+ * HTTP/1.1 static file handler for NonBlockingServer: GET / HEAD with keep-alive and Range.
+
+    Pipeline:  HttpRequestDecoder → StaticFileHandler → RawEncoder
+
+    Per request only the response HEAD goes through a buffer; the body is a FileRegion:
+
+      GET /big.iso  →  ctx.write("HTTP/1.1 200 OK ...")      heap/direct buffer, a few hundred bytes
+                       ctx.writeFile(region 0..size)          transferTo → sendfile, never in the heap
+
+    A 1GB download needs thousands of OP_WRITE rounds (the socket buffer is a few hundred KB);
+    the region keeps its position, so each round is one transferTo from where the last stopped.
+
+    Open FileChannels are cached and shared by every connection (transferTo takes an absolute
+    position, so concurrent transfers from one channel are safe). Past maxCachedFiles a file is
+    opened per request and closed when its region is done. A cached channel keeps serving the
+    file it opened: a file replaced on disk by rename is only picked up once evicted.
+
+    The open() on a cache miss is blocking disk I/O on the event loop; fine for a warm cache.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StaticFileHandler implements ChannelPipeline.Handler {
+    private final Path root;
+    private final int maxCachedFiles;
+    private final ConcurrentHashMap<Path, FileChannel> openFiles = new ConcurrentHashMap<>();
+
+    public StaticFileHandler(Path root, int maxCachedFiles) {
+        this.root = root.toAbsolutePath().normalize();
+        this.maxCachedFiles = maxCachedFiles;
+    }
+
+    @Override
+    public ByteBuffer onFrame(ChannelPipeline.Context context, ByteBuffer frame) throws IOException {
+        ChannelPipeline.FileContext ctx = ChannelPipeline.require(context, ChannelPipeline.FileContext.class);
+        String[] lines = StandardCharsets.ISO_8859_1.decode(frame).toString().split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3) {
+            respond(ctx, "400 Bad Request", "", true);
+            return null;
+        }
+
+        String connection = null;
+        String range = null;
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim();
+            if (name.equalsIgnoreCase("Connection")) {
+                connection = lines[i].substring(colon + 1).trim();
+            } else if (name.equalsIgnoreCase("Range")) {
+                range = lines[i].substring(colon + 1).trim();
+            }
+        }
+        // HTTP/1.1 keeps the connection unless told otherwise, HTTP/1.0 closes unless told otherwise
+        boolean close = requestLine[2].equals("HTTP/1.0")
+                ? !"keep-alive".equalsIgnoreCase(connection)
+                : "close".equalsIgnoreCase(connection);
+
+        String method = requestLine[0];
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            respond(ctx, "405 Method Not Allowed", "Allow: GET, HEAD\r\n", close);
+            return null;
+        }
+
+        Path path = resolve(requestLine[1]);
+        FileChannel file = path == null ? null : open(path);
+        if (file == null) {
+            respond(ctx, "404 Not Found", "", close);
+            return null;
+        }
+        // An uncached channel belongs to this request: its region closes it, or we do right here
+        boolean cached = openFiles.get(path) == file;
+        boolean handedOver = false;
+        try {
+            handedOver = serve(ctx, method, file, !cached, range, close);
+        } finally {
+            if (!cached && !handedOver) {
+                file.close();
+            }
+        }
+        return null;
+    }
+
+    // Returns true if a FileRegion took the file
+    private boolean serve(ChannelPipeline.FileContext ctx, String method, FileChannel file, boolean ownsFile,
+                          String range, boolean close) throws IOException {
+        long size = file.size();
+        long start = 0;
+        long end = size - 1;
+        String status = "200 OK";
+        String headers = "Accept-Ranges: bytes\r\n";
+
+        // "bytes=100-199", "bytes=100-" or the last 500 bytes "bytes=-500"; multiple ranges are not supported
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            try {
+                if (bounds.length != 2) {
+                    start = size; // "bytes=5" → not satisfiable
+                } else if (bounds[0].isEmpty()) {
+                    start = Math.max(0, size - Long.parseLong(bounds[1]));
+                } else {
+                    start = Long.parseLong(bounds[0]);
+                    end = bounds[1].isEmpty() ? size - 1 : Math.min(Long.parseLong(bounds[1]), size - 1);
+                }
+            } catch (NumberFormatException e) {
+                start = size; // unparsable → not satisfiable
+            }
+            if (start > end || start >= size) {
+                respond(ctx, "416 Range Not Satisfiable", "Content-Range: bytes */" + size + "\r\n", close);
+                return false;
+            }
+            status = "206 Partial Content";
+            headers += "Content-Range: bytes " + start + "-" + end + "/" + size + "\r\n";
+        }
+
+        long length = end - start + 1;
+        writeHead(ctx, status, headers + "Content-Length: " + length + "\r\n", close);
+        boolean handedOver = method.equals("GET") && length > 0;
+        if (handedOver) {
+            ctx.writeFile(new ChannelPipeline.FileRegion(file, start, length, ownsFile));
+        }
+        if (close) {
+            ctx.closeWhenFlushed();
+        }
+        return handedOver;
+    }
+
+    private void respond(ChannelPipeline.FileContext ctx, String status, String headers, boolean close) throws IOException {
+        writeHead(ctx, status, headers + "Content-Length: 0\r\n", close);
+        if (close) {
+            ctx.closeWhenFlushed();
+        }
+    }
+
+    private void writeHead(ChannelPipeline.FileContext ctx, String status, String headers, boolean close)
+            throws IOException {
+        String head = "HTTP/1.1 " + status + "\r\n" + headers
+                + "Connection: " + (close ? "close" : "keep-alive") + "\r\n\r\n";
+        ctx.write(ByteBuffer.wrap(head.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    // Cached channel, a fresh one when the cache is full, or null if there is no such file
+    private FileChannel open(Path path) throws IOException {
+        FileChannel cached = openFiles.get(path);
+        if (cached != null) {
+            return cached; // no stat, no open: the common case
+        }
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+            if (openFiles.size() >= maxCachedFiles) {
+                return file;
+            }
+            FileChannel raced = openFiles.putIfAbsent(path, file);
+            if (raced != null) {
+                file.close(); // another event loop opened it first
+                return raced;
+            }
+            return file;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // "/docs/a.txt?x=1" → root/docs/a.txt; anything escaping root ("/../etc/passwd") or not a path ("/a\0b") → null
+    private Path resolve(String target) {
+        int query = target.indexOf('?');
+        String path = query >= 0 ? target.substring(0, query) : target;
+        Path resolved;
+        try {
+            resolved = root.resolve(path.replaceFirst("^/+", "")).normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        return resolved.startsWith(root) ? resolved : null;
+    }
+
+    public int getCachedFiles() {
+        return openFiles.size();
+    }
+
+    // Closes every cached channel; regions still in flight on them fail their connection
+    public void closeCache() {
+        openFiles.values().removeIf(file -> {
+            try {
+                file.close();
+            } catch (IOException ignored) {
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,242 @@
+package nonBlockingIO;
+
+/*
+ * Thread-safe timer scheduler for very many short timers (request timeouts, simulated I/O).
+
+    ScheduledThreadPoolExecutor:
+      schedule() → lock → sift into a binary heap (O(log n)) → unlock
+      1M pending timers = 1M heap entries, every submit and every expiry fights for one lock.
+
+    This scheduler:
+      schedule() from any thread → lock-free queue (CAS, no lock)
+                                         ↓
+      ONE timer thread: drain queue → insert into wheels (O(1)) → advance → run due tasks
+
+    Hierarchical wheels (like the Linux kernel timers and Kafka's purgatory), 256 buckets each:
+
+      level 0: 1 bucket = 1 tick          covers 256 ticks
+      level 1: 1 bucket = 256 ticks       covers 65,536 ticks
+      level 2: 1 bucket = 65,536 ticks    covers 16.7M ticks
+      level 3: ...                        with 1ms ticks: ~49 days
+
+    Far timers wait in a coarse bucket. Each time the finer wheel completes a lap, the next
+    coarse bucket is "cascaded": its timers are re-inserted one level down, until they reach
+    level 0 where each bucket is exactly one tick. A timer moves at most (levels - 1) times.
+
+    Cancel is lazy: it only flips the timer's state, the wheel drops it when its bucket comes up.
+    Tasks run ON the timer thread and must be short (hand heavy work to an executor).
+ */
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class TimerScheduler implements AutoCloseable {
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    // ============ TIMER HANDLE ============
+    public static final class Timer {
+        private static final AtomicIntegerFieldUpdater<Timer> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timer.class, "state");
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private long deadlineTick;
+        private Timer next; // bucket list, only touched by the timer thread
+        private volatile int state = PENDING;
+
+        private Timer(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        // true if the task will not run (false: it already ran or was cancelled before)
+        public boolean cancel() {
+            return STATE.compareAndSet(this, PENDING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public long getDeadlineNanos() {
+            return deadlineNanos;
+        }
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timer[][] wheels = new Timer[LEVELS][WHEEL_SIZE];
+    private final Queue<Timer> submissions = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean parkedIdle;
+    private long currentTick; // next tick to process, timer thread only
+    private int size;         // timers in the wheels, timer thread only
+
+    // Counters for monitoring
+    private final AtomicLong submitted = new AtomicLong();
+    private volatile long expired;
+    private volatile long cascaded;
+
+    private TimerScheduler(long tickMillis) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.startNanos = System.nanoTime();
+        this.thread = new Thread(this::run, "timer-wheel");
+        this.thread.setDaemon(true);
+    }
+
+    // The timer thread starts once the scheduler is fully constructed
+    public static TimerScheduler start(long tickMillis) {
+        TimerScheduler scheduler = new TimerScheduler(tickMillis);
+        scheduler.thread.start();
+        return scheduler;
+    }
+
+    // Safe to call from any thread
+    public Timer schedule(Runnable task, long delay, TimeUnit unit) {
+        Timer timer = new Timer(task, System.nanoTime() + unit.toNanos(delay));
+        submissions.add(timer);
+        submitted.incrementAndGet();
+        if (parkedIdle) {
+            LockSupport.unpark(thread); // the wheel was empty and the thread sleeps without a deadline
+        }
+        return timer;
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getExpired() {
+        return expired;
+    }
+
+    public long getCascaded() {
+        return cascaded;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ============ TIMER THREAD ============
+    private void run() {
+        while (running) {
+            drainSubmissions();
+
+            long nowTick = (System.nanoTime() - startNanos) / tickNanos;
+            if (size == 0) {
+                currentTick = Math.max(currentTick, nowTick + 1); // nothing to expire or cascade, skip ahead
+            }
+            while (currentTick <= nowTick) {
+                processTick(currentTick);
+                currentTick++;
+            }
+
+            if (size == 0) {
+                // Nothing to wait for: sleep until schedule() wakes us up
+                parkedIdle = true;
+                if (submissions.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parkedIdle = false;
+            } else {
+                long sleep = startNanos + currentTick * tickNanos - System.nanoTime();
+                if (sleep > 0) {
+                    LockSupport.parkNanos(this, sleep);
+                }
+            }
+        }
+    }
+
+    private void drainSubmissions() {
+        Timer timer;
+        while ((timer = submissions.poll()) != null) {
+            if (timer.state == PENDING) {
+                // Round up so a timer never fires before its deadline
+                timer.deadlineTick = (timer.deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+                insert(timer);
+            }
+        }
+    }
+
+    // Picks the finest level whose range still reaches the deadline
+    private void insert(Timer timer) {
+        long deadline = Math.max(timer.deadlineTick, currentTick);
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int bucket = (int) (deadline >>> (WHEEL_BITS * level)) & MASK;
+        timer.next = wheels[level][bucket];
+        wheels[level][bucket] = timer;
+        size++;
+    }
+
+    private void processTick(long tick) {
+        // At the start of each lap of level l-1, bring the next level-l bucket down (coarsest first)
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                int bucket = (int) (tick >>> (WHEEL_BITS * level)) & MASK;
+                Timer timer = detach(level, bucket);
+                while (timer != null) {
+                    Timer next = timer.next;
+                    if (timer.state == PENDING) {
+                        insert(timer);
+                        cascaded++;
+                    }
+                    timer = next;
+                }
+            }
+        }
+
+        // Everything in this level-0 bucket is due exactly now
+        Timer timer = detach(0, (int) tick & MASK);
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.next = null;
+            if (Timer.STATE.compareAndSet(timer, PENDING, EXPIRED)) {
+                expired++;
+                try {
+                    timer.task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Timer task failed: " + e);
+                }
+            }
+            timer = next;
+        }
+    }
+
+    private Timer detach(int level, int bucket) {
+        Timer head = wheels[level][bucket];
+        wheels[level][bucket] = null;
+        for (Timer timer = head; timer != null; timer = timer.next) {
+            size--;
+        }
+        return head;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("submitted=%d, expired=%d, cascaded=%d", submitted.get(), expired, cascaded);
+    }
+}
@@ -0,0 +1,196 @@
+package nonBlockingIO;
+
+/*
+ * Upload ingestion for NonBlockingServer: socket → file without passing through a heap buffer.
+
+    Protocol (LengthFieldDecoder / LengthFieldEncoder framing):
+      client → [int length][long size][file name, UTF-8]   header frame
+      client → size raw bytes                              the body, NOT framed
+      server → [int length]"OK <bytes> <MB/s>"             once the file is on disk
+
+    After the header the handler hands the connection a FileSink, and the loop moves the
+    body with transferFrom chunk by chunk as the socket becomes readable.
+
+    fsync is slow (milliseconds) and blocking, so it never runs on the event loop.
+    Finished uploads queue up for one sync thread, which takes everything that finished
+    meanwhile as one batch: fsync each file, then hand the replies back to the loops.
+    Under load one batch covers many uploads and journaled filesystems merge the flushes
+    (group commit); the client only hears "OK" once its bytes are durable.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class UploadHandler implements ChannelPipeline.Handler, AutoCloseable {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final boolean zeroCopy;
+    private final int maxSyncBatch;
+    private final BlockingQueue<Upload> toSync = new LinkedBlockingQueue<>();
+    private final Thread syncThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong syncBatches = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private UploadHandler(Path directory, boolean zeroCopy, int maxSyncBatch) {
+        this.directory = directory;
+        this.zeroCopy = zeroCopy;
+        this.maxSyncBatch = maxSyncBatch;
+        this.syncThread = new Thread(this::syncLoop, "upload-fsync");
+        syncThread.setDaemon(true);
+    }
+
+    // zeroCopy = false reads the body into a heap ByteBuffer and writes that (the baseline).
+    // The fsync thread starts once the handler is fully constructed.
+    public static UploadHandler start(Path directory, boolean zeroCopy, int maxSyncBatch) {
+        UploadHandler handler = new UploadHandler(directory, zeroCopy, maxSyncBatch);
+        handler.syncThread.start();
+        return handler;
+    }
+
+    @Override
+    public ByteBuffer onFrame(ChannelPipeline.Context ctx, ByteBuffer frame) throws IOException {
+        if (frame.remaining() < Long.BYTES) {
+            throw new IOException("Rejected upload: header frame of " + frame.remaining() + " bytes");
+        }
+        long size = frame.getLong();
+        String name = StandardCharsets.UTF_8.decode(frame).toString();
+        Path target;
+        try {
+            target = directory.resolve(name).normalize();
+        } catch (InvalidPathException e) {
+            throw new IOException("Rejected upload: invalid file name " + e.getMessage());
+        }
+        // ".." against a relative directory normalizes to a path without a parent
+        Path parent = target.getParent();
+        if (size < 0 || parent == null || !parent.equals(directory.normalize())) {
+            throw new IOException("Rejected upload: " + name + " (" + size + " bytes)");
+        }
+
+        ChannelPipeline.FileContext files = ChannelPipeline.require(ctx, ChannelPipeline.FileContext.class);
+        ChannelPipeline.LoopContext loop = ChannelPipeline.require(ctx, ChannelPipeline.LoopContext.class);
+
+        FileChannel file = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        files.receiveFile(new Upload(loop, file, target, size));
+        return null;
+    }
+
+    private class Upload extends ChannelPipeline.FileSink {
+        private final ChannelPipeline.LoopContext ctx; // the reply comes back from the fsync thread
+        private final Path target;
+        private final long size;
+        private final long startNanos = System.nanoTime();
+        private long receivedNanos;
+
+        Upload(ChannelPipeline.LoopContext ctx, FileChannel file, Path target, long size) {
+            super(file, 0, size, zeroCopy ? null : ByteBuffer.allocate(COPY_BUFFER_SIZE));
+            this.ctx = ctx;
+            this.target = target;
+            this.size = size;
+        }
+
+        @Override
+        protected void completed(ChannelPipeline.Context ctx) {
+            receivedNanos = System.nanoTime();
+            toSync.add(this);
+        }
+
+        @Override
+        protected void failed() {
+            failed.incrementAndGet();
+            try {
+                file().close();
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+            }
+        }
+
+        // Back on the event loop, after the fsync
+        private void reply(IOException syncError) {
+            try {
+                file().close();
+                if (syncError != null) {
+                    throw syncError;
+                }
+                uploads.incrementAndGet();
+                bytes.addAndGet(size);
+                long nanos = System.nanoTime() - startNanos;
+                String result = String.format("OK %d %.0fMB/s (receive %dms, fsync wait %dms)", size,
+                        size * 1_000.0 / Math.max(1, nanos), (receivedNanos - startNanos) / 1_000_000,
+                        (System.nanoTime() - receivedNanos) / 1_000_000);
+                ctx.write(ByteBuffer.wrap(result.getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                System.err.println("Upload failed: " + e.getMessage());
+                try {
+                    ctx.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void syncLoop() {
+        List<Upload> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Upload first = toSync.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                toSync.drainTo(batch, maxSyncBatch - 1); // whatever finished while the last batch synced
+                syncBatches.incrementAndGet();
+                for (Upload upload : batch) {
+                    IOException error = null;
+                    try {
+                        upload.file().force(false); // fdatasync: data + size, skips the mtime update
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                    IOException syncError = error;
+                    upload.ctx.execute(() -> upload.reply(syncError));
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        long batches = syncBatches.get();
+        return String.format("uploads=%d, bytes=%dMB, failed=%d, fsync batches=%d (%.1f uploads each)",
+                uploads.get(), bytes.get() / (1024 * 1024), failed.get(), batches,
+                batches == 0 ? 0.0 : (double) uploads.get() / batches);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        syncThread.interrupt();
+        try {
+            syncThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
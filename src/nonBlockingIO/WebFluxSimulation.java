@@ -1,7 +1,27 @@
 package nonBlockingIO;
 
+import benchmark.LatencyHistogram;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import jdk.jfr.consumer.RecordingStream;
 
 public class WebFluxSimulation {
 
@@ -16,6 +36,12 @@ public class WebFluxSimulation {
 
         // Simulate non-blocking approach
         nonBlockingApproach();
+
+        // timerSchedulerBenchmark();
+        // reactiveApproach();
+        // reactiveServerDemo();
+        // scenarioComparison(1_000, 100);
+        // scenarioSweep();
     }
 
     // ============= BLOCKING APPROACH =============
@@ -69,7 +95,7 @@ public class WebFluxSimulation {
         int requests = 1000;
         int eventLoopThreads = 8; // Typical for reactive apps
         ExecutorService executorService = Executors.newFixedThreadPool(eventLoopThreads);
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        TimerScheduler scheduler = TimerScheduler.start(1); // lock-free submit, timer wheels (see timerSchedulerBenchmark)
 
         AtomicInteger completed = new AtomicInteger(0);
         CountDownLatch latch = new CountDownLatch(requests);
@@ -106,8 +132,418 @@ public class WebFluxSimulation {
         System.out.println("  Peak threads: " + eventLoopThreads + " (minimal!)");
 
         executorService.shutdown();
-        scheduler.shutdown();
+        scheduler.close();
+
+    }
+
+    // ================= REACTIVE APPROACH (Flow API, real backpressure) ===============
+    /*
+     * nonBlockingApproach() fires every request at once and counts callbacks: nothing stops
+     * it from starting 1M "I/O calls" if asked to. Here the same 100ms calls run through a
+     * Flow pipeline and flatMap's concurrency limit decides how many are in flight:
+     *
+     *   range(requests) → flatMap(call, maxInFlight) → publishOn(event loop) → buffer(100) → subscribe
+     */
+    public void reactiveApproach() throws InterruptedException {
+        System.out.println("REACTIVE APPROACH (Flow API with backpressure)");
+        System.out.println("Demand-driven pipeline on an event loop\n");
+
+        int requests = 1000;
+        int eventLoopThreads = 8;
+        ExecutorService eventLoop = Executors.newFixedThreadPool(eventLoopThreads);
+        TimerScheduler timers = TimerScheduler.start(1);
+
+        for (int maxInFlight : new int[]{requests, 100}) {
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger peakInFlight = new AtomicInteger();
+            AtomicInteger completed = new AtomicInteger();
+            AtomicInteger batches = new AtomicInteger();
+
+            long start = System.currentTimeMillis();
+            ReactiveFlow.Flux.range(0, requests)
+                    .flatMap(requestId -> {
+                        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        return ReactiveFlow.Flux.delayed(requestId, 100, timers) // the non-blocking "I/O"
+                                .map(result -> {
+                                    inFlight.decrementAndGet();
+                                    return result;
+                                });
+                    }, maxInFlight)
+                    .publishOn(eventLoop, 256)
+                    .buffer(100)
+                    .subscribe(batch -> {
+                        batches.incrementAndGet();
+                        int done = completed.addAndGet(batch.size());
+                        if (done % 100 == 0) {
+                            System.out.println("Completed: " + done + " requests");
+                        }
+                    }, 4)
+                    .join();
+            long duration = Math.max(1, System.currentTimeMillis() - start);
+
+            System.out.println("\nResults (max " + maxInFlight + " in flight):");
+            System.out.println("  Total requests: " + completed.get() + " in " + batches.get() + " batches");
+            System.out.println("  Time taken: " + duration + "ms");
+            System.out.println("  Throughput: " + (requests * 1000L / duration) + " req/s");
+            System.out.println("  Peak in flight: " + peakInFlight.get() + " (bounded by demand)\n");
+        }
+
+        eventLoop.shutdown();
+        timers.close();
+    }
+
+    // ================= REACTIVE NIO SERVER: slow consumer throttles reads ===============
+    // Each line goes through a chain with a slow stage (1ms of "work" per line).
+    // The client floods lines; the server must not buffer them all in memory.
+    public void reactiveServerDemo() throws IOException, InterruptedException {
+        System.out.println("=== Reactive NIO Server: Backpressure to the Socket ===\n");
+
+        int port = 8188;
+        int lines = 5_000;
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        ReactiveFlow.FlowHandler flowHandler = new ReactiveFlow.FlowHandler(frames -> frames
+                .publishOn(workers, 16)
+                .map(frame -> {
+                    LockSupport.parkNanos(1_000_000); // slow downstream stage
+                    String line = StandardCharsets.UTF_8.decode(frame).toString();
+                    return ByteBuffer.wrap(line.toUpperCase().getBytes(StandardCharsets.UTF_8));
+                }), 64);
+
+        NIOSelectors.NonBlockingServer server = new NIOSelectors.NonBlockingServer(1,
+                NIOSelectors.NonBlockingServer.WorkerSelection.ROUND_ROBIN);
+        server.setVerbose(false);
+        server.setPipeline(new ChannelPipeline(new ChannelPipeline.LineDecoder(64 * 1024),
+                new ChannelPipeline.LineEncoder()).addLast(flowHandler));
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.start(port);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "nio-boss");
+        serverThread.start();
+        Thread.sleep(200);
+
+        long start = System.currentTimeMillis();
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+            Thread writer = new Thread(() -> {
+                try {
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                    for (int i = 0; i < lines; i++) {
+                        out.write(("hello " + i + "\n").getBytes(StandardCharsets.UTF_8)); // as fast as possible
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    System.err.println("Writer failed: " + e.getMessage());
+                }
+            });
+            writer.start();
+
+            int received = 0;
+            while (received < lines && in.readLine() != null) {
+                received++;
+            }
+            writer.join();
+            long duration = Math.max(1, System.currentTimeMillis() - start);
+
+            System.out.println("Results:");
+            System.out.println("  Lines processed: " + received + " in " + duration + "ms");
+            System.out.println("  Throughput: " + (received * 1000L / duration) + " lines/s (set by the slow stage)");
+            System.out.println("  Reads paused (autoRead off): " + server.getAutoReadPauses() + " times");
+            System.out.println("  Max frames waiting in the server: " + flowHandler.getMaxQueued()
+                    + " (high water 64, out of " + lines + " sent)");
+        }
+
+        server.stop();
+        serverThread.join();
+        workers.shutdown();
+    }
+
+    // ================= SCENARIOS WITH LATENCY PERCENTILES ===============
+    /*
+     * The same simulated request ("I/O takes ioMillis") under five concurrency models:
+     *
+     *   platform pool        200 threads, Thread.sleep blocks a thread  (Spring MVC / Tomcat)
+     *   event loop           8 threads, I/O = a timer callback          (WebFlux / Netty)
+     *   virtual threads      one virtual thread per request, plain blocking code
+     *   virtual + synchronized  same, but the I/O happens inside synchronized
+     *                        → the virtual thread PINS its carrier (JDK 21-23) and blocks it
+     *   structured fan-out   virtual thread per request, 3 parallel calls, cancelled together on failure
+     *
+     * Latency is per request, from submission to completion, so queueing shows up:
+     * 1000 requests on 200 threads = 5 waves → p99 is 5 × ioMillis, not ioMillis.
+     * Pinning events come from JFR (jdk.VirtualThreadPinned); allocated bytes from the ThreadMXBean.
+     */
+    public void scenarioComparison(int requests, long ioMillis) throws Exception {
+        System.out.println("=== " + requests + " requests, " + ioMillis + "ms simulated I/O ===");
+
+        printScenario("platform pool (200)", requests, ioMillis, 200, this::platformPool);
+        printScenario("event loop (8)", requests, ioMillis, Integer.MAX_VALUE, this::eventLoop);
+        printScenario("virtual threads", requests, ioMillis, Integer.MAX_VALUE, this::virtualThreads);
+        // Pinned carriers serialize the I/O: only 20 requests per carrier or this takes forever
+        int carriers = Runtime.getRuntime().availableProcessors();
+        printScenario("virtual + synchronized", Math.min(requests, 20 * carriers), ioMillis,
+                carriers, this::pinnedVirtualThreads);
+        printScenario("structured fan-out (3)", requests, ioMillis, Integer.MAX_VALUE, this::structuredFanOut);
+        System.out.println();
+    }
+
+    // 1k → 1M requests; models that would need more than a minute are skipped
+    public void scenarioSweep() throws Exception {
+        for (int requests : new int[]{1_000, 10_000, 100_000, 1_000_000}) {
+            scenarioComparison(requests, 100);
+        }
+    }
+
+    private interface Scenario {
+        void run(int requests, long ioMillis, LatencyHistogram latency) throws Exception;
+    }
+
+    // parallelism = how many requests can wait for I/O at the same time
+    private void printScenario(String name, int requests, long ioMillis, int parallelism, Scenario scenario)
+            throws Exception {
+        long estimatedMillis = (long) Math.ceil((double) requests / parallelism) * ioMillis;
+        if (estimatedMillis > 60_000) {
+            System.out.printf("  %-24s skipped (would take ~%ds)%n", name, estimatedMillis / 1000);
+            return;
+        }
+        System.out.printf("  %-24s %7d requests %s%n", name, requests, measure(requests, ioMillis, scenario));
+    }
+
+    private String measure(int requests, long ioMillis, Scenario scenario) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder pinnedEvents = new LongAdder();
+        AtomicLong lastFlush = new AtomicLong();
+
+        try (RecordingStream jfr = new RecordingStream()) {
+            jfr.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            jfr.onEvent("jdk.VirtualThreadPinned", event -> pinnedEvents.increment());
+            jfr.onFlush(() -> lastFlush.set(System.nanoTime()));
+            jfr.startAsync();
+
+            // Platform threads only: virtual threads are not counted by getThreadCount()
+            AtomicInteger peakThreads = new AtomicInteger(threads.getThreadCount());
+            Thread sampler = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                    LockSupport.parkNanos(10_000_000);
+                }
+            }, "thread-sampler");
+            sampler.setDaemon(true);
+            sampler.start();
+
+            long allocatedBefore = allocations.getTotalThreadAllocatedBytes();
+            long start = System.nanoTime();
+            scenario.run(requests, ioMillis, latency);
+            long end = System.nanoTime();
+            long allocated = allocations.getTotalThreadAllocatedBytes() - allocatedBefore;
+            sampler.interrupt();
+
+            // JFR hands events over in flushes (about once a second): wait for one after the run
+            while (lastFlush.get() < end && System.nanoTime() - end < 3_000_000_000L) {
+                Thread.sleep(50);
+            }
+            // A scenario records only the requests that succeeded
+            return String.format("%5dms  %s  failed=%d  platform threads=%d  pinned=%d  allocated=%dMB",
+                    (end - start) / 1_000_000, latency.summary(), requests - latency.getCount(),
+                    peakThreads.get(), pinnedEvents.sum(), allocated / (1024 * 1024));
+        }
+    }
+
+    private void platformPool(int requests, long ioMillis, LatencyHistogram latency) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(200);
+        for (int i = 0; i < requests; i++) {
+            long submitted = System.nanoTime();
+            executorService.submit(() -> {
+                blockingIo(ioMillis);
+                latency.record(System.nanoTime() - submitted);
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.HOURS);
+    }
+
+    private void eventLoop(int requests, long ioMillis, LatencyHistogram latency) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        TimerScheduler scheduler = TimerScheduler.start(1);
+        CountDownLatch latch = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            long submitted = System.nanoTime();
+            executorService.submit(() -> scheduler.schedule(() -> {
+                latency.record(System.nanoTime() - submitted);
+                latch.countDown();
+            }, ioMillis, TimeUnit.MILLISECONDS));
+        }
+        latch.await();
+        executorService.shutdown();
+        scheduler.close();
+    }
+
+    private void virtualThreads(int requests, long ioMillis, LatencyHistogram latency) {
+        // close() waits for every task
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                long submitted = System.nanoTime();
+                executorService.submit(() -> {
+                    blockingIo(ioMillis); // unmounts: the carrier runs other virtual threads meanwhile
+                    latency.record(System.nanoTime() - submitted);
+                });
+            }
+        }
+    }
+
+    private void pinnedVirtualThreads(int requests, long ioMillis, LatencyHistogram latency) {
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                long submitted = System.nanoTime();
+                Object connectionLock = new Object();
+                executorService.submit(() -> {
+                    synchronized (connectionLock) {
+                        blockingIo(ioMillis); // cannot unmount inside synchronized → carrier blocked
+                    }
+                    latency.record(System.nanoTime() - submitted);
+                });
+            }
+        }
+    }
+
+    // One request = 3 downstream calls in parallel; if one fails the others are cancelled
+    private void structuredFanOut(int requests, long ioMillis, LatencyHistogram latency) {
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                long submitted = System.nanoTime();
+                executorService.submit(() -> {
+                    try {
+                        fanOut(List.of(
+                                () -> call("user", ioMillis),
+                                () -> call("orders", ioMillis),
+                                () -> call("recommendations", ioMillis))); // the page would be built from these
+                        latency.record(System.nanoTime() - submitted); // ~ioMillis, not 3 × ioMillis
+                    } catch (ExecutionException e) {
+                        // not recorded: measure() reports it as failed
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+    }
+
+    /*
+     * Scoped fan-out without the StructuredTaskScope preview API: the calls get their own executor,
+     * and leaving the try block waits for all of them, so none outlives the request.
+     * Results are taken in completion order, so the first failure cancels the rest right away.
+     */
+    private static List<String> fanOut(List<Callable<String>> calls) throws InterruptedException, ExecutionException {
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<String> completions = new ExecutorCompletionService<>(scope);
+            List<Future<String>> forks = new ArrayList<>(calls.size());
+            for (Callable<String> call : calls) {
+                forks.add(completions.submit(call));
+            }
+            try {
+                for (int i = 0; i < forks.size(); i++) {
+                    completions.take().get();
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                for (Future<String> fork : forks) {
+                    fork.cancel(true); // interrupts the sleeping siblings
+                }
+                throw e;
+            }
+            List<String> results = new ArrayList<>(forks.size());
+            for (Future<String> fork : forks) {
+                results.add(fork.resultNow());
+            }
+            return results;
+        }
+    }
+
+    private static String call(String service, long ioMillis) {
+        blockingIo(ioMillis);
+        return service;
+    }
+
+    private static void blockingIo(long ioMillis) {
+        try {
+            Thread.sleep(ioMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ================= TIMER SCHEDULER vs JDK SCHEDULER ===============
+    /*
+     * Every simulated request above is just a timer ("I/O completes in 100ms").
+     * At 1M concurrent requests the timer structure itself becomes the bottleneck:
+     *
+     *   ScheduledThreadPoolExecutor: one lock + a binary heap of 1M entries
+     *   TimerScheduler:              lock-free submit queue + O(1) wheel buckets
+     *
+     * Jitter = how late a timer actually fires compared to its deadline.
+     */
+    public void timerSchedulerBenchmark() throws InterruptedException {
+        System.out.println("=== Timer Scheduler vs ScheduledThreadPoolExecutor ===\n");
+
+        for (int requests : new int[]{1_000, 100_000, 1_000_000}) {
+            System.out.println(requests + " concurrent requests:");
+
+            ScheduledExecutorService jdkScheduler = Executors.newScheduledThreadPool(2);
+            System.out.println("  JDK scheduler:   " + runTimers(requests,
+                    (task, delayMillis) -> jdkScheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS)));
+            jdkScheduler.shutdown();
+
+            TimerScheduler wheelScheduler = TimerScheduler.start(1);
+            System.out.println("  Timer scheduler: " + runTimers(requests,
+                    (task, delayMillis) -> wheelScheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS)));
+            wheelScheduler.close();
+
+            System.gc();
+            Thread.sleep(200);
+            System.out.println();
+        }
+    }
+
+    private interface Scheduler {
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    // 8 event-loop threads each schedule their share; "I/O" takes 100-199ms
+    private String runTimers(int requests, Scheduler scheduler) throws InterruptedException {
+        int eventLoopThreads = 8;
+        LatencyHistogram jitter = new LatencyHistogram();
+        CountDownLatch latch = new CountDownLatch(requests);
+        ExecutorService executorService = Executors.newFixedThreadPool(eventLoopThreads);
+
+        long start = System.nanoTime();
+        CountDownLatch submitted = new CountDownLatch(eventLoopThreads);
+        for (int t = 0; t < eventLoopThreads; t++) {
+            int first = t;
+            executorService.submit(() -> {
+                for (int i = first; i < requests; i += eventLoopThreads) {
+                    long delayMillis = 100 + i % 100;
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+                    scheduler.schedule(() -> {
+                        jitter.record(System.nanoTime() - deadline);
+                        latch.countDown();
+                    }, delayMillis);
+                }
+                submitted.countDown();
+            });
+        }
+        submitted.await();
+        long submitNanos = System.nanoTime() - start;
+
+        boolean finished = latch.await(60, TimeUnit.SECONDS);
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+        executorService.shutdown();
 
+        return String.format("submit %,d timers/s, done in %dms%s, jitter %s",
+                requests * 1_000_000_000L / Math.max(submitNanos, 1), totalMillis,
+                finished ? "" : " (TIMED OUT)", jitter.summary());
     }
 
 }